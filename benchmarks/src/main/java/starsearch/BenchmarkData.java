@@ -0,0 +1,60 @@
+package starsearch;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Copies the bundled MnDOT files out of the AStarSearch jar, since Graph reads
+ * from a File.
+ */
+class BenchmarkData {
+	static final String distances = SearchRunner.defaultDistanceFileName;
+	static final String heuristic = SearchRunner.defaultHeuristicFileName;
+	static final String coordinates = "MnDOTcoordinates-spaces.txt";
+
+	/**
+	 * Fixed source/goal pairs searched by SearchBenchmark, from short hops to
+	 * paths across the state.
+	 */
+	static final String[][] cityPairs = { { "AlbertLea", "Duluth" }, { "Worthington", "GrandPortage" },
+			{ "Moorhead", "Winona" }, { "Luverne", "InternationalFalls" }, { "SaintCloud", "Rochester" },
+			{ "Minneapolis", "SaintPaul" }, { "Pipestone", "Ely" }, { "LaCrescent", "EastGrandForks" } };
+
+	private BenchmarkData() {
+	}
+
+	/**
+	 * @param name
+	 *            resource name
+	 * @param directory
+	 * @return path of the copy in directory
+	 * @throws IOException
+	 */
+	static Path copyResource(String name, Path directory) throws IOException {
+		Path file = directory.resolve(name);
+		try (InputStream in = BenchmarkData.class.getResourceAsStream("/" + name)) {
+			if (in == null) {
+				throw new IOException("Missing resource " + name);
+			}
+			Files.copy(in, file);
+		}
+		return file;
+	}
+
+	/**
+	 * Deletes a directory made for copied files.
+	 *
+	 * @param directory
+	 * @throws IOException
+	 */
+	static void delete(Path directory) throws IOException {
+		try (var files = Files.list(directory)) {
+			for (Path file : (Iterable<Path>) files::iterator) {
+				Files.delete(file);
+			}
+		}
+		Files.delete(directory);
+	}
+}
@@ -0,0 +1,73 @@
+package starsearch;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Frontier update & pop for each FrontierQueue. Every operation pushes all
+ * cities, lowers the f() of a quarter of them, then pops the queue empty, so
+ * the score is per full fill & drain.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FrontierBenchmark {
+	@Param({ "SORTED_LIST", "DARY_HEAP", "RADIX_HEAP", "BUCKET_QUEUE" })
+	public FrontierType frontierType;
+
+	/** 49 is the MnDOT graph */
+	@Param({ "49", "1000" })
+	public int numCities;
+
+	private FrontierQueue queue;
+	private int[] fValues;
+	private int[] gValues;
+	private int[] decreasedCities;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		queue = frontierType.create(numCities);
+		Random random = new Random(42);
+		fValues = new int[numCities];
+		gValues = new int[numCities];
+		for (int city = 0; city < numCities; city++) {
+			gValues[city] = random.nextInt(500);
+			fValues[city] = gValues[city] + random.nextInt(500);
+		}
+		decreasedCities = new int[numCities / 4];
+		for (int i = 0; i < decreasedCities.length; i++) {
+			decreasedCities[i] = random.nextInt(numCities);
+		}
+	}
+
+	@Benchmark
+	public void updateAndPop(Blackhole blackhole) {
+		for (int city = 0; city < numCities; city++) {
+			queue.update(city, fValues[city], gValues[city], 0);
+		}
+		for (int city : decreasedCities) {
+			queue.update(city, fValues[city] / 2, gValues[city] / 2, 0);
+		}
+		while (queue.hasMoreCities()) {
+			blackhole.consume(queue.pop());
+		}
+		queue.clear();
+	}
+}
@@ -0,0 +1,73 @@
+package starsearch;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Loading the MnDOT distance file and reading neighbors from the loaded Graph.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GraphBenchmark {
+	/** TEXT is the bundled matrix file, BINARY the same graph compiled by BinaryGraphFile */
+	@Param({ "TEXT", "BINARY" })
+	public String format;
+
+	private Path directory;
+	private Graph graph;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("starsearch-bench");
+		Path file = BenchmarkData.copyResource(BenchmarkData.distances, directory);
+		if (format.equals("BINARY")) {
+			Path binary = directory.resolve("distances.bin");
+			BinaryGraphFile.write(new Graph(file.toFile()), binary);
+			file = binary;
+		}
+		graph = new Graph(file.toFile());
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		BenchmarkData.delete(directory);
+	}
+
+	@Benchmark
+	public int importDataFile() throws IOException {
+		graph.importDataFile();
+		return graph.length();
+	}
+
+	/**
+	 * Neighbors of every city. The first call after an import builds the
+	 * adjacency, which importDataFile() measures separately.
+	 */
+	@Benchmark
+	public void getNeighbors(Blackhole blackhole) {
+		for (int city = 0; city < graph.length(); city++) {
+			blackhole.consume(graph.getNeighbors(city));
+		}
+	}
+}
@@ -0,0 +1,212 @@
+package starsearch;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Runs AStarSearch on generated graphs of increasing size and prints load
+ * time, heap used, cities expanded & query latency for every code path: file
+ * format, heuristic, FrontierType and search direction. A code path that runs
+ * over the time budget at one size is skipped at the larger sizes, so the
+ * table shows where each one stops scaling.
+ *
+ * <pre>
+ * java -cp benchmarks.jar starsearch.ScalingSuite [--sizes 1000,10000,100000,1000000]
+ *     [--topology grid|geometric] [--seed 1] [--queries 100] [--budget 30] [--landmarks 16] [--directory DIR]
+ * </pre>
+ */
+public class ScalingSuite {
+	private int[] sizes = { 1000, 10000, 100000, 1000000 };
+	private GraphGenerator.Topology topology = GraphGenerator.Topology.GRID;
+	private long seed = 1;
+	private int queries = 100;
+	private double budgetSeconds = 30; // per code path & size
+	private Path directory;
+	private int landmarkCount = 16;
+	private final Set<String> stopped = new HashSet<>(); // code paths over budget
+
+	public static void main(String[] args) throws IOException {
+		ScalingSuite suite = new ScalingSuite();
+		for (int i = 0; i + 1 < args.length; i += 2) {
+			switch (args[i]) {
+			case "--sizes":
+				suite.sizes = Arrays.stream(args[i + 1].split(",")).mapToInt(Integer::parseInt).toArray();
+				break;
+			case "--topology":
+				suite.topology = GraphGenerator.Topology.valueOf(args[i + 1].toUpperCase(Locale.ROOT));
+				break;
+			case "--seed":
+				suite.seed = Long.parseLong(args[i + 1]);
+				break;
+			case "--queries":
+				suite.queries = Integer.parseInt(args[i + 1]);
+				break;
+			case "--budget":
+				suite.budgetSeconds = Double.parseDouble(args[i + 1]);
+				break;
+			case "--landmarks":
+				suite.landmarkCount = Integer.parseInt(args[i + 1]);
+				break;
+			case "--directory":
+				suite.directory = Path.of(args[i + 1]);
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown option " + args[i]);
+			}
+		}
+		suite.run();
+	}
+
+	private void run() throws IOException {
+		boolean temporary = directory == null;
+		if (temporary) {
+			directory = Files.createTempDirectory("starsearch-scaling");
+		}
+		System.out.printf("%-9s %-6s %-11s %-12s %-3s %8s %8s %9s %6s %9s %9s %9s%n", "cities", "format",
+				"heuristic", "frontier", "dir", "load ms", "heap MB", "expanded", "found", "mean ms", "p50 ms",
+				"p99 ms");
+		try {
+			for (int size : sizes) {
+				long start = System.nanoTime();
+				GraphGenerator generator = new GraphGenerator(topology, size, seed);
+				generator.writeFiles(directory);
+				System.out.printf("# %s generated in %.0f ms%n", generator.getName(), millis(start));
+				String name = generator.getName();
+				generator = null; // only the files are used from here on
+				if (size <= GraphGenerator.maxMatrixCities) {
+					measure(size, "text", directory.resolve(name + "-distances.txt"),
+							directory.resolve(name + "-heuristic.txt"), directory.resolve(name + "-coordinates.txt"));
+				}
+				measure(size, "binary", directory.resolve(name + "-distances.bin"), null,
+						directory.resolve(name + "-coordinates.txt"));
+			}
+		} finally {
+			if (temporary) {
+				BenchmarkData.delete(directory);
+			}
+		}
+	}
+
+	/**
+	 * Loads one distance file with each heuristic, then times every search code
+	 * path on it.
+	 */
+	private void measure(int size, String format, Path distances, Path heuristicMatrix, Path coordinates)
+			throws IOException {
+		for (String heuristicType : heuristicMatrix == null ? new String[] { "coordinates", "landmarks" }
+				: new String[] { "matrix", "coordinates", "landmarks" }) {
+			String loadPath = format + "/" + heuristicType;
+			if (stopped.contains(loadPath)) {
+				continue;
+			}
+			long heapBefore = usedHeap();
+			long start = System.nanoTime();
+			Graph distGraph;
+			Heuristic heuristic;
+			try {
+				distGraph = new Graph(distances.toFile());
+				distGraph.getAdjacency();
+				switch (heuristicType) {
+				case "matrix":
+					heuristic = new MatrixHeuristic(new Graph(heuristicMatrix.toFile()));
+					break;
+				case "coordinates":
+					heuristic = new CoordinateHeuristic(coordinates, distGraph, CoordinateHeuristic.Metric.EUCLIDEAN);
+					break;
+				default:
+					heuristic = new LandmarkHeuristic(distGraph, landmarkCount);
+					break;
+				}
+			} catch (OutOfMemoryError e) {
+				System.out.printf("%-9d %-6s %-11s out of memory loading%n", size, format, heuristicType);
+				stopped.add(loadPath);
+				continue;
+			}
+			double loadMillis = millis(start);
+			double heapMegabytes = (usedHeap() - heapBefore) / 1e6;
+
+			Random random = new Random(seed);
+			int[] sourceCities = new int[queries];
+			int[] goalCities = new int[queries];
+			for (int i = 0; i < queries; i++) {
+				sourceCities[i] = random.nextInt(size);
+				goalCities[i] = random.nextInt(size);
+			}
+			for (FrontierType frontierType : FrontierType.values()) {
+				for (boolean bidirectional : new boolean[] { false, true }) {
+					String codePath = loadPath + "/" + frontierType + "/" + bidirectional;
+					String row = String.format("%-9d %-6s %-11s %-12s %-3s %8.0f %8.1f", size, format,
+							heuristicType, frontierType, bidirectional ? "bi" : "uni", loadMillis, heapMegabytes);
+					if (stopped.contains(codePath)) {
+						continue;
+					}
+					AStarSearch search = new AStarSearch(distGraph, heuristic);
+					search.setFrontierType(frontierType);
+					search.setBidirectional(bidirectional);
+					timeQueries(search, sourceCities, goalCities, row, codePath);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Warms up on the first queries, then times each query on its own.
+	 */
+	private void timeQueries(AStarSearch search, int[] sourceCities, int[] goalCities, String row,
+			String codePath) {
+		long deadline = System.nanoTime() + (long) (budgetSeconds * 1e9);
+		for (int i = 0; i < Math.min(10, queries); i++) {
+			search.search(sourceCities[i], goalCities[i]);
+			if (System.nanoTime() > deadline) {
+				System.out.println(row + "   over budget during warm-up, skipped from here on");
+				stopped.add(codePath);
+				return;
+			}
+		}
+		double[] latencies = new double[queries];
+		long expanded = 0;
+		int found = 0;
+		int done = 0;
+		for (; done < queries && System.nanoTime() < deadline; done++) {
+			long start = System.nanoTime();
+			search.search(sourceCities[done], goalCities[done]);
+			latencies[done] = millis(start);
+			expanded += search.getExpandedCount();
+			found += search.isGoalFound() ? 1 : 0;
+		}
+		latencies = Arrays.copyOf(latencies, done);
+		Arrays.sort(latencies);
+		double mean = Arrays.stream(latencies).average().orElse(0);
+		System.out.printf("%s %9d %6s %9.3f %9.3f %9.3f%s%n", row, done == 0 ? 0 : expanded / done,
+				found + "/" + done, mean, percentile(latencies, 0.5), percentile(latencies, 0.99),
+				done < queries ? "  over budget, skipped from here on" : "");
+		if (done < queries) {
+			stopped.add(codePath);
+		}
+	}
+
+	private static double percentile(double[] sorted, double fraction) {
+		if (sorted.length == 0) {
+			return 0;
+		}
+		return sorted[Math.min(sorted.length - 1, (int) Math.ceil(fraction * sorted.length) - 1)];
+	}
+
+	private static double millis(long startNanos) {
+		return (System.nanoTime() - startNanos) / 1e6;
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
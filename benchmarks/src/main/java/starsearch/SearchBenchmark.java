@@ -0,0 +1,85 @@
+package starsearch;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Complete AStarSearch runs on the bundled MnDOT files. One operation searches
+ * every pair in BenchmarkData.cityPairs with a reused AStarSearch.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchBenchmark {
+	@Param({ "SORTED_LIST", "DARY_HEAP", "RADIX_HEAP", "BUCKET_QUEUE" })
+	public FrontierType frontierType;
+
+	/** MATRIX is the heuristic distance file, COORDINATES a CoordinateHeuristic */
+	@Param({ "MATRIX", "COORDINATES" })
+	public String heuristic;
+
+	@Param({ "false", "true" })
+	public boolean bidirectional;
+
+	private Path directory;
+	private AStarSearch search;
+	private int[] sourceCities;
+	private int[] goalCities;
+
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		directory = Files.createTempDirectory("starsearch-bench");
+		Graph distGraph = new Graph(BenchmarkData.copyResource(BenchmarkData.distances, directory).toFile());
+		Heuristic h;
+		if (heuristic.equals("COORDINATES")) {
+			h = new CoordinateHeuristic(BenchmarkData.copyResource(BenchmarkData.coordinates, directory), distGraph,
+					CoordinateHeuristic.Metric.HAVERSINE);
+		} else {
+			h = new MatrixHeuristic(
+					new Graph(BenchmarkData.copyResource(BenchmarkData.heuristic, directory).toFile()));
+		}
+		search = new AStarSearch(distGraph, h);
+		search.setFrontierType(frontierType);
+		search.setBidirectional(bidirectional);
+
+		sourceCities = new int[BenchmarkData.cityPairs.length];
+		goalCities = new int[BenchmarkData.cityPairs.length];
+		for (int i = 0; i < BenchmarkData.cityPairs.length; i++) {
+			sourceCities[i] = distGraph.getCityIndex(BenchmarkData.cityPairs[i][0]);
+			goalCities[i] = distGraph.getCityIndex(BenchmarkData.cityPairs[i][1]);
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		BenchmarkData.delete(directory);
+	}
+
+	@Benchmark
+	public void search(Blackhole blackhole) {
+		for (int i = 0; i < sourceCities.length; i++) {
+			search.search(sourceCities[i], goalCities[i]);
+			blackhole.consume(search.isGoalFound());
+		}
+	}
+}
@@ -1,23 +1,68 @@
 package starsearch;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.time.Duration;
+import java.util.BitSet;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+import java.util.function.ObjDoubleConsumer;
 
 /**
  * Performs A* Search process on given input Graphs & source/destination cities.
+ * 
+ * Expanded cities are kept in a closed set, and the search ends when the goal
+ * city is popped from the frontier, so the route is optimal for any admissible
+ * heuristic. If the heuristic is not consistent, a closed city can be reached
+ * again by a shorter path; it is then reopened & expanded again, and both are
+ * counted. With setConsistencyCheck(true) the search instead throws
+ * IllegalStateException at the first edge that breaks consistency.
+ *
+ * Each search uses Heuristic.forSnapshot() of the Graph snapshot it reads, so
+ * a heuristic precomputed from edges since edited is replaced, not trusted.
  */
 public class AStarSearch {
+	static final int stopPollInterval = 32; // expansions between polls of stopCondition, a power of two
+
 	private Graph distGraph;
-	private Graph heurGraph;
+	private Heuristic heuristic;
+	private Heuristic searchHeuristic; // heuristic.forSnapshot() of the last search
 	private int sourceCity;
 	private int goalCity;
+	private boolean goalFound;
 
-	private Frontier frontier;
-	private List<Frontier> frontierTracker; // logs the frontier each time a city is processed
+	private FrontierType frontierType = FrontierType.DARY_HEAP;
+	private FrontierQueue frontierQueue; // orders the cities to process
+	private FrontierType frontierQueueType; // type & size frontierQueue was created with
+	private int frontierQueueSize;
+	private SearchLog searchLog; // logs every frontier operation, replayed for output
 	private PathTracker pathTracker; // maintains most recent f() & prevCity for each city
+	private CsrGraph adjacency; // edges of the Graph snapshot the search started with
+	private boolean bidirectional;
+	private BidirectionalSearch bidirectionalSearch; // created on first bidirectional search
+	private ContractionHierarchy contractionHierarchy; // answers queries when set
+	private ContractionHierarchySearch hierarchySearch;
+	private boolean anytime;
+	private Duration timeBudget; // anytime search limits, null for no time limit
+	private double targetBound = 1;
+	private double initialWeight = 3;
+	private double weightStep = 0.5;
+	private ObjDoubleConsumer<Route> improvementListener;
+	private AnytimeSearch anytimeSearch; // created on first anytime search
+	private double bound = 1; // proven suboptimality of the last route
+	private final BitSet closedSet = new BitSet(); // cities expanded & not reopened since
+	private final BitSet expandedSet = new BitSet(); // cities expanded at least once
+	private boolean consistencyCheck;
+	private final SearchMetrics metrics = new SearchMetrics();
+	private BooleanSupplier stopCondition; // polled while searching, null for never
 
 	private int maxNumFrontierEntries; // counts required columns for output of frontier entries
-	private int runCount; // count of cities processed
+	private int runCount; // count of frontier updates
+	private int expandedCount; // count of cities processed
+	private int reopenedCount; // closed cities put back on the frontier
+	private int reExpandedCount; // expansions of cities already expanded
 
 	/**
 	 * Constructor
@@ -26,12 +71,22 @@ public class AStarSearch {
 	 * @param heur Graph with no titles for rows or columns
 	 */
 	AStarSearch(Graph distGraph, Graph heurGraph) {
+		this(distGraph, new MatrixHeuristic(heurGraph));
+	}
+
+	/**
+	 * Constructor
+	 * 
+	 * @param distGraph Graph with no titles for rows or columns
+	 * @param heuristic estimate to the goal city
+	 */
+	AStarSearch(Graph distGraph, Heuristic heuristic) {
 		this.distGraph = distGraph;
-		this.heurGraph = heurGraph;
-		frontier = new Frontier();
-		frontierTracker = new ArrayList<Frontier>();
+		this.heuristic = heuristic;
+		searchHeuristic = heuristic;
+		searchLog = new SearchLog();
 		maxNumFrontierEntries = 0;
-		pathTracker = new PathTracker(distGraph, heurGraph);
+		pathTracker = new PathTracker(distGraph, heuristic);
 	}
 
 	/**
@@ -39,46 +94,409 @@ public class AStarSearch {
 	 * 
 	 * @param source
 	 * @param goal
+	 * @throws IllegalArgumentException if either city is not in the graph
 	 */
 	public void search(String sourceCityName, String goalCityName) {
-		this.sourceCity = distGraph.getCityIndex(sourceCityName);
-		this.goalCity = distGraph.getCityIndex(goalCityName);
+		search(cityIndex(sourceCityName), cityIndex(goalCityName));
+	}
+
+	/**
+	 * Searches the Class graphs for the shortest route from source to goal. The
+	 * frontier, path tracker & log are reused from the previous search, so once
+	 * they have grown to fit a search the loop allocates nothing (with any
+	 * FrontierType except SORTED_LIST).
+	 * 
+	 * @param sourceCity
+	 * @param goalCity
+	 */
+	public void search(int sourceCity, int goalCity) {
+		SearchEvents.Search searchEvent = new SearchEvents.Search();
+		SearchEvents.SearchInit initEvent = new SearchEvents.SearchInit();
+		searchEvent.begin();
+		initEvent.begin();
+		long startNanos = System.nanoTime();
+		metrics.reset();
+		this.sourceCity = sourceCity;
+		this.goalCity = goalCity;
 		boolean found = false; // used to end search loop when destination reached.
+		maxNumFrontierEntries = 0;
+		runCount = 0;
+		expandedCount = 0;
+		reopenedCount = 0;
+		reExpandedCount = 0;
+		closedSet.clear();
+		expandedSet.clear();
+		GraphSnapshot snapshot = distGraph.getSnapshot();
+		adjacency = snapshot.getAdjacency();
+		if (contractionHierarchy != null && !contractionHierarchy.matches(snapshot)) {
+			setContractionHierarchy(null); // the graph was edited since it was built
+		}
+		Heuristic snapshotHeuristic = heuristic.forSnapshot(snapshot);
+		if (snapshotHeuristic != searchHeuristic) { // precomputed from other edges
+			searchHeuristic = snapshotHeuristic;
+			pathTracker.setHeuristic(snapshotHeuristic);
+			anytimeSearch = null;
+			bidirectionalSearch = null;
+		}
 
 		// initialize pathTracker & frontier with starting & goal cities
 		pathTracker.initializePathTracker(sourceCity, goalCity);
-		frontier.update(sourceCity, pathTracker.getHeuristic(sourceCity), sourceCity);
+		// weighted ARA* keys are not monotone, which only the d-ary heap handles well
+		FrontierType queueType = anytime && contractionHierarchy == null ? FrontierType.DARY_HEAP : frontierType;
+		if (frontierQueue == null || frontierQueueType != queueType || frontierQueueSize != distGraph.length()) {
+			frontierQueue = queueType.create(distGraph.length());
+			frontierQueueType = queueType;
+			frontierQueueSize = distGraph.length();
+		} else {
+			frontierQueue.clear();
+		}
+		searchLog.clear();
+		searchLog.push(sourceCity, pathTracker.getHeuristic(sourceCity), 0, sourceCity);
+		long searchStartNanos = System.nanoTime();
+		initEvent.end();
+		if (initEvent.shouldCommit()) {
+			initEvent.source = sourceCity;
+			initEvent.goal = goalCity;
+			initEvent.commit();
+		}
+
+		if (contractionHierarchy != null) {
+			found = hierarchySearch.search(sourceCity, goalCity, pathTracker);
+			expandedCount = hierarchySearch.getSettledCount();
+			runCount = hierarchySearch.getUpdateCount();
+			metrics.edgeCount = hierarchySearch.getEdgeCount();
+			metrics.pushCount = hierarchySearch.getPushCount();
+		} else if (anytime) {
+			if (anytimeSearch == null) {
+				anytimeSearch = new AnytimeSearch(distGraph, searchHeuristic);
+			}
+			long deadline = timeBudget == null ? Long.MAX_VALUE : startNanos + timeBudget.toNanos();
+			found = anytimeSearch.search(sourceCity, goalCity, adjacency, deadline, targetBound, initialWeight,
+					weightStep, frontierQueue, pathTracker, improvementListener, stopCondition);
+			expandedCount = anytimeSearch.getExpandedCount();
+			maxNumFrontierEntries = anytimeSearch.getMaxFrontier();
+			runCount = anytimeSearch.getUpdateCount();
+			metrics.edgeCount = anytimeSearch.getEdgeCount();
+			metrics.pushCount = anytimeSearch.getPushCount();
+		} else if (bidirectional) {
+			if (bidirectionalSearch == null) {
+				bidirectionalSearch = new BidirectionalSearch(distGraph, searchHeuristic);
+			}
+			bidirectionalSearch.setStopCondition(stopCondition);
+			found = bidirectionalSearch.search(sourceCity, goalCity, adjacency, pathTracker, frontierQueue,
+					frontierType, searchLog);
+			expandedCount = bidirectionalSearch.getExpandedCount();
+			maxNumFrontierEntries = bidirectionalSearch.getMaxForwardFrontier();
+			runCount = bidirectionalSearch.getUpdateCount();
+			metrics.edgeCount = bidirectionalSearch.getEdgeCount();
+			metrics.pushCount = bidirectionalSearch.getPushCount();
+		} else {
+			frontierQueue.update(sourceCity, pathTracker.getHeuristic(sourceCity), 0, sourceCity);
+			metrics.pushCount = 1;
+		}
 
-		// calls primary search method for each city in the frontier queue until goal is
-		// reached.
-		while (!found && frontier.hasMoreCities()) {
-			frontier = frontier.copy();
-			found = processCity(frontier.pop()[0], goalCity);
+		// expands the city at the front of the frontier queue until the goal city is
+		// popped, when no shorter path to it can remain.
+		while (contractionHierarchy == null && !anytime && !bidirectional && !found && frontierQueue.hasMoreCities()) {
+			int city = frontierQueue.pop();
+			searchLog.pop(city);
+			if (city == goalCity) {
+				found = true;
+				break;
+			}
+			closedSet.set(city);
+			if (expandedSet.get(city)) {
+				reExpandedCount++;
+			}
+			expandedSet.set(city);
+			expandedCount++;
+			if ((expandedCount & (SearchEvents.expansionSampleInterval - 1)) == 0) {
+				commitExpansionEvent(city);
+			}
+			if ((expandedCount & (stopPollInterval - 1)) == 0) {
+				checkStopCondition(stopCondition);
+			}
+			processCity(city);
+		}
+		if (found) {
+			searchLog.goal(goalCity);
+		}
+		goalFound = found;
+		if (contractionHierarchy != null || !found) {
+			bound = 1;
+		} else if (!searchHeuristic.isConsistent()) {
+			bound = Double.POSITIVE_INFINITY; // the route may not be the shortest
+		} else {
+			bound = anytime ? anytimeSearch.getBound() : 1;
+		}
+		metrics.searchNanos = System.nanoTime() - searchStartNanos;
+		metrics.initNanos = searchStartNanos - startNanos;
+		metrics.loadNanos = distGraph.getLoadNanos();
+		metrics.expandedCount = expandedCount;
+		metrics.peakFrontierSize = maxNumFrontierEntries;
+		metrics.found = found;
+		if (contractionHierarchy != null || anytime || bidirectional) {
+			metrics.decreaseKeyCount = runCount - metrics.pushCount;
+		}
+		SearchStatistics.getInstance().recordSearch(metrics);
+		searchEvent.end();
+		if (searchEvent.shouldCommit()) {
+			searchEvent.source = sourceCity;
+			searchEvent.goal = goalCity;
+			searchEvent.mode = contractionHierarchy != null ? "hierarchy"
+					: anytime ? "anytime" : bidirectional ? "bidirectional" : "A*";
+			searchEvent.frontierType = frontierQueueType.name();
+			searchEvent.found = found;
+			searchEvent.expanded = expandedCount;
+			searchEvent.edges = metrics.edgeCount;
+			searchEvent.peakFrontier = maxNumFrontierEntries;
+			searchEvent.commit();
+		}
+	}
+
+	private void commitExpansionEvent(int city) {
+		SearchEvents.Expansion event = new SearchEvents.Expansion();
+		if (event.shouldCommit()) {
+			event.city = city;
+			event.f = pathTracker.getCostFunction(city);
+			event.g = pathTracker.getMilesToCity(city);
+			event.expanded = expandedCount;
+			event.frontierSize = frontierQueue.size();
+			event.commit();
 		}
 	}
 
+	private int cityIndex(String cityName) {
+		int city = distGraph.getCityIndex(cityName);
+		if (city < 0) {
+			throw new IllegalArgumentException("Unknown city: " + cityName);
+		}
+		return city;
+	}
+
 	/**
-	 * Calculates the next frontier from a start node towards a goal node.
+	 * Selects bidirectional A* for the next search: forward & reverse searches
+	 * meeting in the middle, see BidirectionalSearch. The graph must be
+	 * undirected. The frontier table only shows the forward search.
 	 * 
-	 * @param parentCity
-	 * @param goalCity
-	 * @return true if goal City is reached. False otherwise.
+	 * @param bidirectional
+	 */
+	public void setBidirectional(boolean bidirectional) {
+		this.bidirectional = bidirectional;
+	}
+
+	public boolean isBidirectional() {
+		return bidirectional;
+	}
+
+	/**
+	 * Answers later searches from a ContractionHierarchy of the distance Graph,
+	 * instead of A*. The path table is the same; the frontier table is empty
+	 * since no frontier is kept. Pass null to search with A* again. Each search
+	 * checks the hierarchy against the Graph snapshot it reads, & once the Graph
+	 * has been edited drops it & uses A* from then on.
+	 * 
+	 * @param contractionHierarchy
+	 * @throws IllegalArgumentException
+	 *             if the hierarchy was built from a different graph
+	 */
+	public void setContractionHierarchy(ContractionHierarchy contractionHierarchy) {
+		if (contractionHierarchy != null && !contractionHierarchy.matches(distGraph)) {
+			throw new IllegalArgumentException("ContractionHierarchy was built from a different graph");
+		}
+		this.contractionHierarchy = contractionHierarchy;
+		hierarchySearch = contractionHierarchy == null ? null : new ContractionHierarchySearch(contractionHierarchy);
+	}
+
+	public ContractionHierarchy getContractionHierarchy() {
+		return contractionHierarchy;
+	}
+
+	/**
+	 * Selects anytime search (ARA*, see AnytimeSearch) for later searches: a
+	 * first route is found quickly with an inflated heuristic, then improved
+	 * until it is proven within targetBound of the shortest or the time budget
+	 * runs out. getBound() gives the proven bound of the route returned. A
+	 * contraction hierarchy, when set, is used instead; bidirectional is
+	 * ignored. The frontier is always a DARY_HEAP: the radix heap & bucket queue
+	 * expect monotone keys, which weighted keys & the requeue between passes
+	 * are not.
+	 * 
+	 * The bound is proven only for a heuristic whose isConsistent() is true, such
+	 * as a CoordinateHeuristic or LandmarkHeuristic. With any other, such as the
+	 * MnDOT MatrixHeuristic, routes are still improved but getBound() is
+	 * infinite.
+	 * 
+	 * @param timeBudget
+	 *            time from the start of a search to stop improving at, null for
+	 *            no limit
+	 * @param targetBound
+	 *            stop once miles are at most this times the shortest, 1 to
+	 *            improve until optimal
+	 */
+	public void setAnytime(Duration timeBudget, double targetBound) {
+		if (targetBound < 1) {
+			throw new IllegalArgumentException("Bound must be at least 1: " + targetBound);
+		}
+		anytime = true;
+		this.timeBudget = timeBudget;
+		this.targetBound = targetBound;
+	}
+
+	/**
+	 * Selects anytime search, improving the route until optimal or out of time.
+	 * 
+	 * @param timeBudget
+	 */
+	public void setAnytime(Duration timeBudget) {
+		setAnytime(timeBudget, 1);
+	}
+
+	/**
+	 * Selects anytime search, improving the route until within a bound, however
+	 * long that takes.
+	 * 
+	 * @param targetBound
+	 */
+	public void setAnytime(double targetBound) {
+		setAnytime(null, targetBound);
+	}
+
+	/**
+	 * Returns to A* for later searches.
+	 */
+	public void disableAnytime() {
+		anytime = false;
+	}
+
+	public boolean isAnytime() {
+		return anytime;
+	}
+
+	/**
+	 * Sets the heuristic weight of the first anytime pass, & the amount it is
+	 * lowered by for each pass after. Defaults are 3 & 0.5.
+	 * 
+	 * @param initialWeight
+	 *            at least 1
+	 * @param weightStep
+	 *            more than 0
+	 */
+	public void setAnytimeWeights(double initialWeight, double weightStep) {
+		if (initialWeight < 1 || !(weightStep > 0)) {
+			throw new IllegalArgumentException("Weight must be at least 1 & step more than 0: " + initialWeight
+					+ ", " + weightStep);
+		}
+		this.initialWeight = initialWeight;
+		this.weightStep = weightStep;
+	}
+
+	/**
+	 * Sets a listener given each better route an anytime search finds, & its
+	 * bound, on the searching thread, so a caller can use the first route while
+	 * the search goes on.
+	 * 
+	 * @param improvementListener
+	 *            null for none
+	 */
+	public void setImprovementListener(ObjDoubleConsumer<Route> improvementListener) {
+		this.improvementListener = improvementListener;
+	}
+
+	/**
+	 * @return proven factor between the last route's miles & the shortest: 1
+	 *         for contraction hierarchy queries & routes not found, infinite if
+	 *         the heuristic is not known to be consistent, & otherwise 1 except
+	 *         for anytime searches
+	 */
+	public double getBound() {
+		return bound;
+	}
+
+	/**
+	 * @return passes made by the last anytime search
+	 */
+	public int getAnytimePassCount() {
+		return anytimeSearch == null ? 0 : anytimeSearch.getPassCount();
+	}
+
+	/**
+	 * Checks, on every edge relaxed by later A* searches, that the heuristic is
+	 * consistent: h(city) <= miles(city, next) + h(next). A consistent heuristic
+	 * never reopens a closed city, so expansions are minimal for it.
+	 * 
+	 * @param consistencyCheck
+	 *            true to throw IllegalStateException at the first violation
+	 */
+	public void setConsistencyCheck(boolean consistencyCheck) {
+		this.consistencyCheck = consistencyCheck;
+	}
+
+	public boolean isConsistencyCheck() {
+		return consistencyCheck;
+	}
+
+	/**
+	 * Sets a condition polled every stopPollInterval expansions by later A* &
+	 * bidirectional searches, such as a cancelled flag or a passed deadline. A
+	 * search that sees it true stops by throwing CancellationException, with no
+	 * goal found. Contraction hierarchy queries are short & do not poll it.
+	 * writeFrontierTracker() polls it between rows.
+	 * 
+	 * @param stopCondition
+	 *            null to never stop early
+	 */
+	public void setStopCondition(BooleanSupplier stopCondition) {
+		this.stopCondition = stopCondition;
+	}
+
+	/**
+	 * @throws CancellationException
+	 *             if stopCondition is set & true
+	 */
+	static void checkStopCondition(BooleanSupplier stopCondition) {
+		if (stopCondition != null && stopCondition.getAsBoolean()) {
+			throw new CancellationException("Search stopped");
+		}
+	}
+
+	/**
+	 * Selects the FrontierQueue implementation used by the next search. Anytime
+	 * searches always use DARY_HEAP.
+	 * 
+	 * @param frontierType
 	 */
-	public boolean processCity(int parentCity, int goalCity) {
+	public void setFrontierType(FrontierType frontierType) {
+		this.frontierType = frontierType;
+	}
 
-		// get neighbors of city to process
-		ArrayList<Integer> neighbors = distGraph.getNeighbors(parentCity);
+	public FrontierType getFrontierType() {
+		return frontierType;
+	}
+
+	/**
+	 * Calculates the next frontier from an expanded city. Neighbors reached by a
+	 * shorter path are added to the frontier, reopening them if closed.
+	 * 
+	 * @param parentCity
+	 */
+	private void processCity(int parentCity) {
 
 		// calculate cost to parent city & it's neighbors
 		int milesToParentCity = pathTracker.getMilesToCity(parentCity);
 
 		// for each neighbor, calculate f(), update pathTracker
-		for (int i = 0; i < neighbors.size(); i++) {
-			int nextCity = neighbors.get(i);
-			int milesToNextCity = distGraph.getDistance(parentCity, nextCity);
+		for (int edge = adjacency.firstEdge(parentCity); edge < adjacency.endEdge(parentCity); edge++) {
+			int nextCity = adjacency.getTarget(edge);
+			int milesToNextCity = adjacency.getWeight(edge);
+			metrics.edgeCount++;
+
+			if (consistencyCheck) {
+				checkConsistency(parentCity, nextCity, milesToNextCity);
+			}
 
 			// calculate total estimated path cost for next city
-			int costFunction = heurGraph.getDistance(nextCity, goalCity) + milesToParentCity + milesToNextCity;
+			int costFunction = pathTracker.getHeuristic(nextCity) + milesToParentCity + milesToNextCity;
 
 			// if old f() > than new f(), update path tracker & frontier queue
 			if (pathTracker.getCostFunction(nextCity) > costFunction) {
@@ -87,21 +505,48 @@ public class AStarSearch {
 				pathTracker.setCostFunction(nextCity, costFunction);
 				pathTracker.setPreviousCity(nextCity, parentCity);
 				pathTracker.setMilesToCity(nextCity, milesToParentCity + milesToNextCity);
-				frontier = frontier.copy();
-				frontier.update(nextCity, costFunction, parentCity);
-
-				// update frontierTracker and it's city index
-				frontierTracker.add(frontier);
+				if (closedSet.get(nextCity)) {
+					closedSet.clear(nextCity);
+					reopenedCount++;
+				}
+				if (frontierQueue.contains(nextCity)) {
+					searchLog.decreaseKey(nextCity, costFunction, milesToParentCity + milesToNextCity, parentCity);
+					metrics.decreaseKeyCount++;
+				} else {
+					searchLog.push(nextCity, costFunction, milesToParentCity + milesToNextCity, parentCity);
+					metrics.pushCount++;
+				}
+				frontierQueue.update(nextCity, costFunction, milesToParentCity + milesToNextCity, parentCity);
 				runCount++;
 			}
-			maxNumFrontierEntries = Math.max(frontier.size(), maxNumFrontierEntries);
+			maxNumFrontierEntries = Math.max(frontierQueue.size(), maxNumFrontierEntries);
+		}
+	}
 
-			// end search if goal city found
-			if (nextCity == goalCity) {
-				return true;
-			}
+	private void checkConsistency(int city, int nextCity, int miles) {
+		int cityHeuristic = pathTracker.getHeuristic(city);
+		int nextHeuristic = pathTracker.getHeuristic(nextCity);
+		if (cityHeuristic > miles + nextHeuristic) {
+			throw new IllegalStateException("Heuristic is not consistent: h(" + distGraph.getCityName(city) + ") = "
+					+ cityHeuristic + " > " + miles + " miles to " + distGraph.getCityName(nextCity) + " + h = "
+					+ nextHeuristic);
 		}
-		return false;
+	}
+
+	public boolean isGoalFound() {
+		return goalFound;
+	}
+
+	/**
+	 * Returns the result of the last search.
+	 * 
+	 * @return Route, with an empty path if the goal was not reached
+	 */
+	public Route getRoute() {
+		if (!goalFound) {
+			return new Route(sourceCity, goalCity, new int[0], -1);
+		}
+		return new Route(sourceCity, goalCity, pathTracker.getPathTaken(), pathTracker.getMilesToCity(goalCity));
 	}
 
 	/**
@@ -113,79 +558,172 @@ public class AStarSearch {
 		return pathTracker.pathTakenToString();
 	}
 
+	/**
+	 * Writes the table of the path taken, as pathTakenToString() returns it.
+	 * 
+	 * @param out
+	 * @throws IOException
+	 */
+	public void writePathTaken(Writer out) throws IOException {
+		pathTracker.writePathTaken(out);
+	}
+
 	public String pathTrackerToString() {
 		return pathTracker.toString();
 	}
 
 	/**
 	 * Returns A String containing the entire log of frontiers, formatted as a
-	 * table.
+	 * table. There is one row for each frontier update made while processing a
+	 * city, rebuilt by replaying the search log.
 	 * 
 	 * @return String
 	 */
 	public String frontierTrackerToString() {
-		String s = "City |";
-		String tempS = "";
+		StringWriter s = new StringWriter();
+		try {
+			writeFrontierTracker(s);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e); // not thrown by StringWriter
+		}
+		return s.toString();
+	}
+
+	/**
+	 * Writes the frontierTrackerToString() table row by row, so the whole table
+	 * is never held in memory. The stop condition is polled between rows, so a
+	 * cancelled search also stops writing its table.
+	 * 
+	 * @param out
+	 * @throws IOException
+	 * @throws CancellationException
+	 *             if the stop condition becomes true
+	 */
+	public void writeFrontierTracker(Writer out) throws IOException {
+		out.write("City |");
 		for (int i = 0; i < maxNumFrontierEntries; i++) { // append the title row
-			s = s.concat(" City f() Prev |");
+			out.write(" City f() Prev |");
 		}
-		s = s.concat("\r\n-----|");
+		out.write("\r\n-----|");
 		for (int i = 0; i < maxNumFrontierEntries; i++) { // append dashed line
-			s = s.concat("---------------|");
-		}
-		s = s.concat("\r\n");
-		for (int i = 0; i < frontierTracker.size(); i++) { // append all entries in frontier #i
-			tempS = tempS.concat(
-					distGraph.getCityCode(frontierTracker.get(i).getProcessedCity()) + "  |" + frontierToString(i));
-			for (int j = frontierTracker.get(i).size(); j < maxNumFrontierEntries; j++) { // add empty column lines
-				tempS = tempS.concat("               |");
+			out.write("---------------|");
+		}
+		out.write("\r\n");
+		Frontier replayFrontier = new Frontier();
+		boolean processing = false; // rows start once the first city is popped
+		for (int i = 0; i < searchLog.eventCount(); i++) { // append all entries in frontier #i
+			searchLog.replay(i, replayFrontier);
+			int type = searchLog.getType(i);
+			processing |= type == SearchLog.POP;
+			if (!processing || (type != SearchLog.PUSH && type != SearchLog.DECREASE_KEY)) {
+				continue;
 			}
-			tempS = tempS.concat("\r\n");
+			checkStopCondition(stopCondition);
+			out.write(distGraph.getCityCode(replayFrontier.getProcessedCity()));
+			out.write("  |");
+			writeFrontier(out, replayFrontier);
+			for (int j = replayFrontier.size(); j < maxNumFrontierEntries; j++) { // add empty column lines
+				out.write("               |");
+			}
+			out.write("\r\n");
 		}
-		s = s.concat(tempS);
-		s = s.concat(distGraph.getCityCode(goalCity) + "  |");
-		tempS = "";
+		out.write(distGraph.getCityCode(goalCity));
+		out.write("  |");
 		for (int j = 0; j < maxNumFrontierEntries; j++) { // add empty column lines
-			tempS = tempS.concat("               |");
+			out.write("               |");
 		}
-		s = s.concat(tempS);
-		s = s.trim();
-		return s;
 	}
 
 	/**
-	 * Returns a string of a single Frontier.
+	 * Returns a string of a single Frontier, rebuilt from the search log.
 	 * 
 	 * @param frontierNum
+	 *            row of the frontierTrackerToString() table
 	 * @return String of single Frontier.
 	 */
 	public String frontierToString(int frontierNum) {
-		String cityTs;
-		String fTs;
-		String prevTs;
-		String s = "";
-		int align;
-		String spaces = "";
-		Frontier tempFrontier;
-		int[] tempFrontierEntry;
-		tempFrontier = frontierTracker.get(frontierNum);
+		int row = -1;
+		boolean processing = false;
+		for (int i = 0; i < searchLog.eventCount(); i++) {
+			int type = searchLog.getType(i);
+			processing |= type == SearchLog.POP;
+			if (processing && (type == SearchLog.PUSH || type == SearchLog.DECREASE_KEY) && ++row == frontierNum) {
+				StringWriter s = new StringWriter();
+				try {
+					writeFrontier(s, searchLog.frontierAt(i));
+				} catch (IOException e) {
+					throw new UncheckedIOException(e); // not thrown by StringWriter
+				}
+				return s.toString();
+			}
+		}
+		throw new IndexOutOfBoundsException("No frontier #" + frontierNum);
+	}
 
+	/**
+	 * Writes the entries of a single Frontier as one table row.
+	 * 
+	 * @param out
+	 * @param tempFrontier
+	 * @throws IOException
+	 */
+	private void writeFrontier(Writer out, Frontier tempFrontier) throws IOException {
+		int[] tempFrontierEntry;
 		for (int i = 0; i < tempFrontier.entryCount(); i++) {
 			tempFrontierEntry = tempFrontier.getEntry(i);
-			cityTs = distGraph.getCityCode(tempFrontierEntry[0]);
-			fTs = String.valueOf(tempFrontierEntry[1]);
-			prevTs = distGraph.getCityCode(tempFrontierEntry[2]);
-			align = 3 - String.valueOf(fTs).length();
-			spaces = "";
-			for (int j = 0; j < align; j++) {
-				spaces = spaces.concat(" ");
+			String fTs = String.valueOf(tempFrontierEntry[1]);
+			out.write("  ");
+			out.write(distGraph.getCityCode(tempFrontierEntry[0]));
+			out.write(' ');
+			out.write(fTs);
+			for (int j = fTs.length(); j < 3; j++) { // align f() to 3 digits
+				out.write(' ');
 			}
-			s = s.concat("  " + cityTs + " " + fTs + spaces + "  " + prevTs + " |");
+			out.write("  ");
+			out.write(distGraph.getCityCode(tempFrontierEntry[2]));
+			out.write(" |");
 		}
-		return s;
+	}
+
+	public Graph getDistGraph() {
+		return distGraph;
+	}
+
+	public SearchLog getSearchLog() {
+		return searchLog;
 	}
 
 	public int getRunCount() {
 		return runCount;
 	}
+
+	/**
+	 * @return counters & timings of the last search, reused by the next one
+	 */
+	public SearchMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * @return cities processed by the last search
+	 */
+	public int getExpandedCount() {
+		return expandedCount;
+	}
+
+	/**
+	 * @return closed cities reached again by a shorter path in the last A*
+	 *         search, 0 for a consistent heuristic
+	 */
+	public int getReopenedCount() {
+		return reopenedCount;
+	}
+
+	/**
+	 * @return expansions of cities already expanded in the last A* search,
+	 *         included in getExpandedCount()
+	 */
+	public int getReExpandedCount() {
+		return reExpandedCount;
+	}
 }
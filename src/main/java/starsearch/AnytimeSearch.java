@@ -0,0 +1,372 @@
+package starsearch;
+
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+import java.util.function.ObjDoubleConsumer;
+
+/**
+ * Anytime Repairing A* (ARA*) used by AStarSearch. The first pass is weighted
+ * A*, keyed by g + w * h with w above 1, which reaches the goal after far
+ * fewer expansions than A* & finds a route at most w times the shortest. Each
+ * later pass lowers w & improves the route, reusing the g() values found so
+ * far: a pass only expands the cities whose g() dropped since they were last
+ * expanded, kept in the frontier & an inconsistent list.
+ *
+ * After each pass the route's bound is min(w, miles / lower bound), where the
+ * lower bound is the smallest g + h of the cities still to be expanded. The
+ * weight is not lowered below the target bound, since a pass at that weight
+ * already proves it. The search stops when the bound reaches the target, at
+ * w = 1, or when the deadline passes. The first route is always completed,
+ * however late. Bounds hold for a consistent heuristic only; for any other
+ * the bound is infinite.
+ */
+class AnytimeSearch {
+	private static final int unreachable = Integer.MAX_VALUE;
+
+	private final Graph distGraph;
+	private final Heuristic heuristic;
+	private CsrGraph adjacency;
+	private int goalCity;
+	private double weight;
+
+	// search state, reused with generation stamps
+	private int[] g;
+	private int[] parent;
+	private int[] estimate; // h() to the goal
+	private int[] stamp;
+	private int generation;
+	private int[] closedPass; // pass a city was expanded in
+	private int[] inconsistentPass; // pass a closed city's g() dropped in
+	private int pass; // unique over all searches, so stamps need no clearing
+	private int[] inconsistent = new int[64];
+	private int inconsistentCount;
+	private int[] pending = new int[64]; // frontier & inconsistent cities between passes
+
+	// best route so far
+	private int[] path = new int[64];
+	private int[] pathMiles = new int[64];
+	private int pathLength;
+	private int bestMiles;
+	private double bound;
+
+	private int passCount;
+	private int expandedCount;
+	private int edgeCount;
+	private int updateCount;
+	private int pushCount;
+	private int maxFrontier;
+
+	AnytimeSearch(Graph distGraph, Heuristic heuristic) {
+		this.distGraph = distGraph;
+		this.heuristic = heuristic;
+	}
+
+	/**
+	 * Finds a route, then improves it until the bound reaches targetBound or the
+	 * deadline passes, & records the best in the PathTracker, which must be
+	 * initialized for source & goal.
+	 *
+	 * @param sourceCity
+	 * @param goalCity
+	 * @param adjacency
+	 *            edges of the Graph snapshot to search
+	 * @param deadlineNanos
+	 *            System.nanoTime() to stop improving at, Long.MAX_VALUE for none
+	 * @param targetBound
+	 *            at least 1
+	 * @param initialWeight
+	 *            heuristic weight of the first pass, at least 1
+	 * @param weightStep
+	 *            amount the weight is lowered by after each pass
+	 * @param frontier
+	 *            empty d-ary heap sized for the graph, since keys are not
+	 *            monotone
+	 * @param pathTracker
+	 * @param listener
+	 *            given each improved route & its bound, null for none
+	 * @param stopCondition
+	 *            polled with the deadline, null for none
+	 * @return true if the goal city was reached
+	 */
+	public boolean search(int sourceCity, int goalCity, CsrGraph adjacency, long deadlineNanos, double targetBound,
+			double initialWeight, double weightStep, FrontierQueue frontier, PathTracker pathTracker,
+			ObjDoubleConsumer<Route> listener, BooleanSupplier stopCondition) {
+		this.adjacency = adjacency;
+		this.goalCity = goalCity;
+		initialize(adjacency.length());
+		passCount = 0;
+		expandedCount = 0;
+		edgeCount = 0;
+		updateCount = 0;
+		pushCount = 1;
+		maxFrontier = 0;
+		pathLength = 0;
+		bestMiles = unreachable;
+		bound = Double.POSITIVE_INFINITY;
+		weight = initialWeight;
+
+		touch(sourceCity);
+		touch(goalCity);
+		g[sourceCity] = 0;
+		frontier.update(sourceCity, key(sourceCity), 0, sourceCity);
+		while (true) {
+			passCount++;
+			boolean complete = improvePath(frontier, deadlineNanos, stopCondition);
+			int pendingCount = drain(frontier);
+			if (g[goalCity] != unreachable) {
+				recordRoute(sourceCity, pendingCount, complete, listener);
+			}
+			if (!complete || g[goalCity] == unreachable || bound <= targetBound || weight <= 1
+					|| pendingCount == 0 || passed(deadlineNanos)) {
+				break;
+			}
+			// next pass: lower the weight, no further than a pass needs to prove the
+			// target, & queue the frontier & inconsistent cities with new keys
+			weight = Math.max(Math.max(1, targetBound), weight - weightStep);
+			nextPass();
+			for (int i = 0; i < pendingCount; i++) {
+				int city = pending[i];
+				frontier.update(city, key(city), g[city], parent[city]);
+				updateCount++;
+			}
+		}
+		frontier.clear();
+		if (pathLength == 0) {
+			return false;
+		}
+		copyToPathTracker(pathTracker);
+		return true;
+	}
+
+	/**
+	 * @return proven factor between the best route's miles & the shortest
+	 */
+	public double getBound() {
+		return bound;
+	}
+
+	/**
+	 * @return heuristic weight of the last pass
+	 */
+	public double getWeight() {
+		return weight;
+	}
+
+	/**
+	 * @return passes made by the last search
+	 */
+	public int getPassCount() {
+		return passCount;
+	}
+
+	/**
+	 * @return expansions over all passes of the last search
+	 */
+	public int getExpandedCount() {
+		return expandedCount;
+	}
+
+	public int getEdgeCount() {
+		return edgeCount;
+	}
+
+	/**
+	 * @return frontier updates made by the last search
+	 */
+	public int getUpdateCount() {
+		return updateCount;
+	}
+
+	/**
+	 * @return cities added to the frontier, the other updates were
+	 *         decrease-keys
+	 */
+	public int getPushCount() {
+		return pushCount;
+	}
+
+	public int getMaxFrontier() {
+		return maxFrontier;
+	}
+
+	private void initialize(int numCities) {
+		if (g == null || g.length != numCities) {
+			g = new int[numCities];
+			parent = new int[numCities];
+			estimate = new int[numCities];
+			stamp = new int[numCities];
+			closedPass = new int[numCities];
+			inconsistentPass = new int[numCities];
+			generation = 0;
+			pass = 0;
+		}
+		if (++generation == Integer.MAX_VALUE) {
+			Arrays.fill(stamp, 0);
+			generation = 1;
+		}
+		nextPass();
+	}
+
+	private void nextPass() {
+		if (++pass == Integer.MAX_VALUE) {
+			Arrays.fill(closedPass, 0);
+			Arrays.fill(inconsistentPass, 0);
+			pass = 1;
+		}
+		inconsistentCount = 0;
+	}
+
+	/**
+	 * One pass of weighted A*: expands cities until none has a key below the
+	 * goal's. A closed city reached by a shorter path is not reopened in this
+	 * pass, but put on the inconsistent list for the next.
+	 *
+	 * @return false if stopped by the deadline
+	 */
+	private boolean improvePath(FrontierQueue frontier, long deadlineNanos, BooleanSupplier stopCondition) {
+		int pollMask = AStarSearch.stopPollInterval - 1;
+		while (frontier.hasMoreCities() && frontier.peekFValue() < key(goalCity)) {
+			if ((expandedCount & pollMask) == pollMask) {
+				AStarSearch.checkStopCondition(stopCondition);
+				if (g[goalCity] != unreachable && passed(deadlineNanos)) {
+					return false;
+				}
+			}
+			int city = frontier.pop();
+			expandedCount++;
+			closedPass[city] = pass;
+			int miles = g[city];
+			for (int edge = adjacency.firstEdge(city); edge < adjacency.endEdge(city); edge++) {
+				int next = adjacency.getTarget(edge);
+				int nextMiles = miles + adjacency.getWeight(edge);
+				edgeCount++;
+				touch(next);
+				if (nextMiles < g[next]) {
+					g[next] = nextMiles;
+					parent[next] = city;
+					if (closedPass[next] != pass) {
+						pushCount += frontier.contains(next) ? 0 : 1;
+						frontier.update(next, key(next), nextMiles, city);
+						updateCount++;
+					} else if (inconsistentPass[next] != pass) {
+						inconsistentPass[next] = pass;
+						inconsistent = ensure(inconsistent, inconsistentCount + 1);
+						inconsistent[inconsistentCount++] = next;
+					}
+				}
+			}
+			maxFrontier = Math.max(maxFrontier, frontier.size());
+		}
+		return true;
+	}
+
+	/**
+	 * Empties the frontier & inconsistent list into pending.
+	 *
+	 * @return number of pending cities
+	 */
+	private int drain(FrontierQueue frontier) {
+		int count = 0;
+		pending = ensure(pending, frontier.size() + inconsistentCount);
+		while (frontier.hasMoreCities()) {
+			pending[count++] = frontier.pop();
+		}
+		for (int i = 0; i < inconsistentCount; i++) {
+			pending[count++] = inconsistent[i];
+		}
+		return count;
+	}
+
+	/**
+	 * Keeps the route to the goal if it is shorter than the best so far, & works
+	 * out its bound: every city not yet expanded with its final g() is pending,
+	 * so the smallest pending g + h is a lower bound on the shortest route.
+	 */
+	private void recordRoute(int sourceCity, int pendingCount, boolean complete, ObjDoubleConsumer<Route> listener) {
+		long lowerBound = Long.MAX_VALUE;
+		for (int i = 0; i < pendingCount; i++) {
+			int city = pending[i];
+			lowerBound = Math.min(lowerBound, (long) g[city] + estimate[city]);
+		}
+		int miles = g[goalCity];
+		boolean shorter = miles < bestMiles;
+		if (shorter) {
+			tracePath(sourceCity);
+			miles = pathMiles[pathLength - 1];
+			bestMiles = miles;
+		}
+		double passBound = bestMiles <= lowerBound ? 1 : (double) bestMiles / lowerBound;
+		if (complete) {
+			passBound = Math.min(passBound, weight);
+		}
+		if (!heuristic.isConsistent()) {
+			passBound = Double.POSITIVE_INFINITY; // nothing is proven
+		}
+		boolean tighter = passBound < bound;
+		bound = Math.min(bound, passBound);
+		if (listener != null && (shorter || tighter)) {
+			listener.accept(new Route(sourceCity, goalCity, Arrays.copyOf(path, pathLength), bestMiles), bound);
+		}
+	}
+
+	/**
+	 * Follows parents back from the goal, adding up the edge miles, which may be
+	 * less than g() if a city on the way was improved later.
+	 */
+	private void tracePath(int sourceCity) {
+		pathLength = 0;
+		for (int city = goalCity; city >= 0 && pathLength <= g.length; city = parent[city]) {
+			path = ensure(path, pathLength + 1);
+			path[pathLength++] = city;
+			if (city == sourceCity) {
+				break;
+			}
+		}
+		for (int i = 0; i < pathLength / 2; i++) {
+			int swap = path[i];
+			path[i] = path[pathLength - 1 - i];
+			path[pathLength - 1 - i] = swap;
+		}
+		pathMiles = ensure(pathMiles, pathLength);
+		pathMiles[0] = 0;
+		for (int i = 1; i < pathLength; i++) {
+			pathMiles[i] = pathMiles[i - 1] + adjacency.getWeight(path[i - 1], path[i], distGraph.noEdgeValue);
+		}
+	}
+
+	private void copyToPathTracker(PathTracker pathTracker) {
+		for (int i = 1; i < pathLength; i++) {
+			int city = path[i];
+			pathTracker.setPreviousCity(city, path[i - 1]);
+			pathTracker.setMilesToCity(city, pathMiles[i]);
+			pathTracker.setCostFunction(city, pathMiles[i] + pathTracker.getHeuristic(city));
+		}
+	}
+
+	/**
+	 * @return g + weight * h, the frontier key of the current pass
+	 */
+	private int key(int city) {
+		if (g[city] == unreachable) {
+			return unreachable;
+		}
+		return (int) Math.min(unreachable - 1, g[city] + (long) (weight * estimate[city]));
+	}
+
+	private static boolean passed(long deadlineNanos) {
+		return deadlineNanos != Long.MAX_VALUE && System.nanoTime() - deadlineNanos >= 0;
+	}
+
+	private void touch(int city) {
+		if (stamp[city] != generation) {
+			stamp[city] = generation;
+			g[city] = unreachable;
+			parent[city] = -1;
+			estimate[city] = heuristic.estimate(city, goalCity);
+		}
+	}
+
+	private static int[] ensure(int[] array, int length) {
+		return length <= array.length ? array : Arrays.copyOf(array, Math.max(length, array.length * 2));
+	}
+}
@@ -0,0 +1,188 @@
+package starsearch;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Runs searches in the background & returns CompletableFutures, so callers
+ * such as a UI thread or a request handler never block on a search.
+ *
+ * A future that is cancelled, or whose deadline passes, completes at once with
+ * CancellationException or TimeoutException, and its search stops at the next
+ * poll of AStarSearch's stop condition. AStarSearch objects are pooled & reused
+ * by later searches; all of them share the Graph & Heuristic, & each reads
+ * the Graph snapshot current when it starts.
+ */
+public class AsyncSearch implements AutoCloseable {
+	private final Graph distGraph;
+	private final Heuristic heuristic;
+	private final Executor executor;
+	private final ExecutorService ownedExecutor; // shut down by close(), null for a caller's executor
+	private final Queue<AStarSearch> idleSearches = new ConcurrentLinkedQueue<>();
+	private volatile FrontierType frontierType = FrontierType.DARY_HEAP;
+	private volatile boolean bidirectional;
+
+	/**
+	 * Runs searches on the given executor, which is not shut down by close().
+	 *
+	 * @param distGraph
+	 * @param heuristic
+	 * @param executor
+	 */
+	AsyncSearch(Graph distGraph, Heuristic heuristic, Executor executor) {
+		this(distGraph, heuristic, executor, null);
+	}
+
+	/**
+	 * Runs searches on virtual threads where the JDK has them (21 or later), or
+	 * else on daemon threads, one per available processor.
+	 *
+	 * @param distGraph
+	 * @param heuristic
+	 */
+	AsyncSearch(Graph distGraph, Heuristic heuristic) {
+		this(distGraph, heuristic, null, defaultExecutor());
+	}
+
+	private AsyncSearch(Graph distGraph, Heuristic heuristic, Executor executor, ExecutorService ownedExecutor) {
+		this.distGraph = distGraph;
+		this.heuristic = heuristic;
+		this.executor = ownedExecutor != null ? ownedExecutor : executor;
+		this.ownedExecutor = ownedExecutor;
+
+		// build the lazily created Graph structures before threads share them
+		distGraph.getAdjacency();
+		distGraph.getSymbolTable();
+	}
+
+	public void setFrontierType(FrontierType frontierType) {
+		this.frontierType = frontierType;
+	}
+
+	public void setBidirectional(boolean bidirectional) {
+		this.bidirectional = bidirectional;
+	}
+
+	/**
+	 * Searches for the route between two cities.
+	 *
+	 * @param sourceCity
+	 * @param goalCity
+	 * @param timeout
+	 *            deadline from now, null for none
+	 * @return future Route
+	 */
+	public CompletableFuture<Route> search(int sourceCity, int goalCity, Duration timeout) {
+		return search(sourceCity, goalCity, timeout, AStarSearch::getRoute);
+	}
+
+	/**
+	 * Searches for the route between two cities given by name or code. The
+	 * future fails with IllegalArgumentException if either is unknown.
+	 *
+	 * @param sourceCityName
+	 * @param goalCityName
+	 * @param timeout
+	 *            deadline from now, null for none
+	 * @param result
+	 *            applied to the finished search on the search thread, for
+	 *            example to write its output. The stop condition is still set,
+	 *            so writing the frontier table stops at the next row once the
+	 *            future is cancelled or times out; other output is not bounded
+	 * @return future result
+	 */
+	public <T> CompletableFuture<T> search(String sourceCityName, String goalCityName, Duration timeout,
+			Function<AStarSearch, T> result) {
+		int sourceCity = distGraph.getCityIndex(sourceCityName);
+		int goalCity = distGraph.getCityIndex(goalCityName);
+		if (sourceCity < 0 || goalCity < 0) {
+			return CompletableFuture.failedFuture(
+					new IllegalArgumentException("Unknown city: " + (sourceCity < 0 ? sourceCityName : goalCityName)));
+		}
+		return search(sourceCity, goalCity, timeout, result);
+	}
+
+	/**
+	 * Searches for the route between two cities, then maps the finished search
+	 * to a result.
+	 *
+	 * @param sourceCity
+	 * @param goalCity
+	 * @param timeout
+	 *            deadline from now, null for none
+	 * @param result
+	 *            applied to the finished search on the search thread, for
+	 *            example to write its output. The stop condition is still set,
+	 *            so writing the frontier table stops at the next row once the
+	 *            future is cancelled or times out; other output is not bounded
+	 * @return future result
+	 */
+	public <T> CompletableFuture<T> search(int sourceCity, int goalCity, Duration timeout,
+			Function<AStarSearch, T> result) {
+		CompletableFuture<T> future = new CompletableFuture<>();
+		if (timeout != null) {
+			future.orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS);
+		}
+		FrontierType type = frontierType;
+		boolean searchBidirectional = bidirectional;
+		try {
+			executor.execute(() -> {
+				if (future.isDone()) {
+					return; // cancelled or timed out while queued
+				}
+				AStarSearch search = idleSearches.poll();
+				if (search == null) {
+					search = new AStarSearch(distGraph, heuristic);
+				}
+				search.setFrontierType(type);
+				search.setBidirectional(searchBidirectional);
+				search.setStopCondition(future::isDone);
+				try {
+					search.search(sourceCity, goalCity);
+					future.complete(result.apply(search));
+				} catch (CancellationException e) {
+					future.cancel(false); // already done unless result threw it
+				} catch (Throwable e) {
+					future.completeExceptionally(e);
+				} finally {
+					search.setStopCondition(null);
+					idleSearches.offer(search);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			future.completeExceptionally(e);
+		}
+		return future;
+	}
+
+	/**
+	 * Shuts down the default executor; running searches finish first.
+	 */
+	@Override
+	public void close() {
+		if (ownedExecutor != null) {
+			ownedExecutor.shutdown();
+		}
+	}
+
+	private static ExecutorService defaultExecutor() {
+		try {
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+				Thread thread = new Thread(runnable, "AsyncSearch");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+	}
+}
@@ -0,0 +1,288 @@
+package starsearch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Answers batches of route queries & distance tables in parallel. All worker
+ * threads share the same Graph & Heuristic; each thread keeps its own
+ * AStarSearch & OneToManySearch, which are reused for every query it answers.
+ * Each query reads the Graph snapshot current when it starts, & a distance
+ * table a single snapshot, so the Graph can be updated while a batch runs.
+ */
+public class BatchSearch implements AutoCloseable {
+	private final Graph distGraph;
+	private final Heuristic heuristic;
+	private final int threads;
+	private final ExecutorService executor;
+	private final ThreadLocal<AStarSearch> searches;
+	private final ThreadLocal<OneToManySearch> sweeps;
+	private volatile FrontierType frontierType = FrontierType.DARY_HEAP;
+	private volatile RouteCache routeCache; // null for no caching
+
+	/**
+	 * Constructor
+	 *
+	 * @param distGraph
+	 * @param heuristic
+	 * @param threads number of worker threads, usually the number of cores
+	 */
+	BatchSearch(Graph distGraph, Heuristic heuristic, int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("threads must be at least 1: " + threads);
+		}
+		this.distGraph = distGraph;
+		this.heuristic = heuristic;
+		this.threads = threads;
+
+		// build the lazily created Graph structures before threads share them
+		distGraph.getAdjacency();
+		distGraph.getSymbolTable();
+
+		executor = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "BatchSearch");
+			thread.setDaemon(true);
+			return thread;
+		});
+		searches = ThreadLocal.withInitial(() -> new AStarSearch(this.distGraph, this.heuristic));
+		sweeps = ThreadLocal.withInitial(() -> new OneToManySearch(this.distGraph, frontierType));
+	}
+
+	/**
+	 * Uses one thread per available processor.
+	 *
+	 * @param distGraph
+	 * @param heuristic
+	 */
+	BatchSearch(Graph distGraph, Heuristic heuristic) {
+		this(distGraph, heuristic, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Selects the FrontierQueue implementation used by later batches.
+	 *
+	 * @param frontierType
+	 */
+	public void setFrontierType(FrontierType frontierType) {
+		this.frontierType = frontierType;
+	}
+
+	/**
+	 * Answers later batches from a RouteCache where possible, adding the routes
+	 * searched for to it.
+	 *
+	 * @param routeCache RouteCache of the same Graph, null to search every pair
+	 */
+	public void setRouteCache(RouteCache routeCache) {
+		this.routeCache = routeCache;
+	}
+
+	public RouteCache getRouteCache() {
+		return routeCache;
+	}
+
+	/**
+	 * Searches every source/goal pair, spread over the worker threads.
+	 *
+	 * @param sourceCities
+	 * @param goalCities same length as sourceCities
+	 * @return Route for each pair, in input order
+	 * @throws InterruptedException if interrupted while waiting for the workers,
+	 *             which are stopped first
+	 */
+	public Route[] searchAll(int[] sourceCities, int[] goalCities) throws InterruptedException {
+		if (sourceCities.length != goalCities.length) {
+			throw new IllegalArgumentException(
+					sourceCities.length + " source cities but " + goalCities.length + " goal cities");
+		}
+		Route[] routes = new Route[sourceCities.length];
+		AtomicInteger nextQuery = new AtomicInteger();
+		AtomicBoolean stopped = new AtomicBoolean();
+		FrontierType type = frontierType;
+		RouteCache cache = routeCache;
+		runWorkers(routes.length, nextQuery, stopped, () -> {
+			AStarSearch search = searches.get();
+			search.setFrontierType(type);
+			search.setStopCondition(stopped::get);
+			try {
+				for (int i = nextQuery.getAndIncrement(); i < routes.length; i = nextQuery.getAndIncrement()) {
+					if (cache != null) {
+						routes[i] = cache.search(search, sourceCities[i], goalCities[i]);
+					} else {
+						search.search(sourceCities[i], goalCities[i]);
+						routes[i] = search.getRoute();
+					}
+				}
+			} finally {
+				search.setStopCondition(null);
+			}
+		});
+		return routes;
+	}
+
+	/**
+	 * Computes the distance from every source to every target. Each worker
+	 * takes one source at a time & settles all targets in a single Dijkstra
+	 * sweep. The graph is undirected, so when there are fewer targets than
+	 * sources the sweeps start from the targets instead.
+	 *
+	 * @param sources
+	 * @param targets
+	 * @return DistanceTable with a row per source & a column per target
+	 * @throws InterruptedException if interrupted while waiting for the workers,
+	 *             which finish their current sweep first
+	 */
+	public DistanceTable distanceTable(int[] sources, int[] targets) throws InterruptedException {
+		boolean fromTargets = targets.length < sources.length;
+		int[] from = fromTargets ? targets : sources;
+		int[] to = fromTargets ? sources : targets;
+		int[] miles = new int[from.length * to.length];
+		AtomicInteger nextRow = new AtomicInteger();
+		FrontierType type = frontierType;
+		CsrGraph adjacency = distGraph.getAdjacency(); // every row from the same snapshot
+		runWorkers(from.length, nextRow, new AtomicBoolean(), () -> {
+			OneToManySearch sweep = sweeps.get();
+			if (sweep.getFrontierType() != type) {
+				sweep = new OneToManySearch(distGraph, type);
+				sweeps.set(sweep);
+			}
+			for (int i = nextRow.getAndIncrement(); i < from.length; i = nextRow.getAndIncrement()) {
+				sweep.search(adjacency, from[i], to, miles, i * to.length);
+			}
+		});
+		if (!fromTargets) {
+			return new DistanceTable(distGraph, sources, targets, miles);
+		}
+		int[] transposed = new int[miles.length];
+		for (int i = 0; i < from.length; i++) {
+			for (int j = 0; j < to.length; j++) {
+				transposed[j * from.length + i] = miles[i * to.length + j];
+			}
+		}
+		return new DistanceTable(distGraph, sources, targets, transposed);
+	}
+
+	/**
+	 * Computes the distance table between cities given by name or code.
+	 *
+	 * @param sources
+	 * @param targets
+	 * @return DistanceTable with a row per source & a column per target
+	 * @throws InterruptedException if interrupted while waiting for the workers
+	 * @throws IllegalArgumentException if a city is not in the graph
+	 */
+	public DistanceTable distanceTable(List<String> sources, List<String> targets) throws InterruptedException {
+		int[] sourceCities = new int[sources.size()];
+		for (int i = 0; i < sourceCities.length; i++) {
+			sourceCities[i] = cityIndex(sources.get(i));
+		}
+		int[] targetCities = new int[targets.size()];
+		for (int i = 0; i < targetCities.length; i++) {
+			targetCities[i] = cityIndex(targets.get(i));
+		}
+		return distanceTable(sourceCities, targetCities);
+	}
+
+	/**
+	 * Searches every source/goal pair, given by city name or code.
+	 *
+	 * @param pairs each entry is { source, goal }
+	 * @return Route for each pair, in input order
+	 * @throws InterruptedException if interrupted while waiting for the workers
+	 * @throws IllegalArgumentException if a city is not in the graph
+	 */
+	public Route[] searchAll(List<String[]> pairs) throws InterruptedException {
+		int[] sourceCities = new int[pairs.size()];
+		int[] goalCities = new int[pairs.size()];
+		for (int i = 0; i < pairs.size(); i++) {
+			sourceCities[i] = cityIndex(pairs.get(i)[0]);
+			goalCities[i] = cityIndex(pairs.get(i)[1]);
+		}
+		return searchAll(sourceCities, goalCities);
+	}
+
+	/**
+	 * Runs worker on up to one thread per task & waits for all of them. Workers
+	 * claim tasks from next. If one fails, or the calling thread is interrupted,
+	 * next is moved past the last task & stopped is set, for searches to poll,
+	 * & every worker is waited for before the failure is thrown, so none is
+	 * still using its thread's searches when this returns.
+	 */
+	private void runWorkers(int tasks, AtomicInteger next, AtomicBoolean stopped, Runnable worker)
+			throws InterruptedException {
+		int count = Math.min(threads, tasks);
+		CountDownLatch finished = new CountDownLatch(count);
+		List<Future<?>> workers = new ArrayList<>(count);
+		for (int t = 0; t < count; t++) {
+			workers.add(executor.submit(() -> {
+				try {
+					worker.run();
+				} finally {
+					finished.countDown();
+				}
+			}));
+		}
+		try {
+			for (Future<?> future : workers) {
+				future.get();
+			}
+		} catch (InterruptedException e) {
+			stopWorkers(tasks, next, stopped, finished);
+			Thread.currentThread().interrupt();
+			throw e;
+		} catch (ExecutionException e) {
+			if (stopWorkers(tasks, next, stopped, finished)) {
+				Thread.currentThread().interrupt();
+			}
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			if (e.getCause() instanceof Error) {
+				throw (Error) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	/**
+	 * Stops the workers & waits for all of them to finish, even if interrupted.
+	 *
+	 * @return true if interrupted while waiting
+	 */
+	private static boolean stopWorkers(int tasks, AtomicInteger next, AtomicBoolean stopped, CountDownLatch finished) {
+		next.set(tasks);
+		stopped.set(true);
+		boolean interrupted = false;
+		while (true) {
+			try {
+				finished.await();
+				return interrupted;
+			} catch (InterruptedException e) {
+				interrupted = true;
+			}
+		}
+	}
+
+	/**
+	 * Stops the worker threads.
+	 */
+	@Override
+	public void close() {
+		executor.shutdown();
+	}
+
+	private int cityIndex(String cityName) {
+		int city = distGraph.getCityIndex(cityName);
+		if (city < 0) {
+			throw new IllegalArgumentException("Unknown city: " + cityName);
+		}
+		return city;
+	}
+}
@@ -0,0 +1,192 @@
+package starsearch;
+
+import java.util.function.BooleanSupplier;
+
+/**
+ * Bidirectional A* used by AStarSearch. A forward search from the source city
+ * and a reverse search from the goal city run on the same undirected graph,
+ * both ordered with the balanced potential p(v) = (h(v, goal) - h(v, source)) / 2
+ * so their reduced edge costs agree. Keys are doubled to stay integers:
+ *
+ * forward key = 2 * g(v) + h(v, goal) - h(v, source)
+ * reverse key = 2 * g'(v) + h(v, source) - h(v, goal)
+ *
+ * The searches stop once the two smallest keys add up to at least twice the
+ * best meeting path found so far, which is then optimal for a consistent
+ * heuristic. Keys are never negative for an admissible heuristic.
+ *
+ * The balanced potential is weaker than either heuristic alone, so the two
+ * searches together expand only somewhat fewer cities than forward A*, & with
+ * landmarks sometimes more; each expansion also costs two estimates. See the
+ * ScalingSuite numbers in the README.
+ */
+class BidirectionalSearch {
+	private final PathTracker reverseTracker; // g' & next city towards the goal
+	private FrontierQueue reverseQueue;
+	private FrontierType reverseQueueType;
+	private int reverseQueueSize;
+	private int expandedCount;
+	private int updateCount;
+	private int pushCount;
+	private int edgeCount;
+	private int maxForwardFrontier;
+	private BooleanSupplier stopCondition;
+
+	BidirectionalSearch(Graph distGraph, Heuristic heuristic) {
+		reverseTracker = new PathTracker(distGraph, heuristic);
+	}
+
+	/**
+	 * Searches from both ends. The forward PathTracker must be initialized for
+	 * source & goal, and the forward queue empty. When the goal is found the
+	 * reverse half of the path is copied into the forward PathTracker, so it
+	 * holds the whole path from source to goal.
+	 *
+	 * @param sourceCity
+	 * @param goalCity
+	 * @param adjacency
+	 *            edges of the Graph snapshot to search
+	 * @param forward
+	 * @param forwardQueue
+	 * @param type
+	 *            FrontierType for the reverse queue
+	 * @param searchLog
+	 *            receives the forward search operations
+	 * @return true if the goal city was reached
+	 */
+	public boolean search(int sourceCity, int goalCity, CsrGraph adjacency, PathTracker forward,
+			FrontierQueue forwardQueue, FrontierType type, SearchLog searchLog) {
+		expandedCount = 0;
+		updateCount = 0;
+		pushCount = 2; // source & goal
+		edgeCount = 0;
+		maxForwardFrontier = 0;
+		reverseTracker.initializePathTracker(goalCity, sourceCity);
+		if (reverseQueue == null || reverseQueueType != type || reverseQueueSize != adjacency.length()) {
+			reverseQueue = type.create(adjacency.length());
+			reverseQueueType = type;
+			reverseQueueSize = adjacency.length();
+		} else {
+			reverseQueue.clear();
+		}
+
+		forwardQueue.update(sourceCity, forwardKey(forward, sourceCity), 0, sourceCity);
+		reverseQueue.update(goalCity, reverseKey(forward, goalCity), 0, goalCity);
+		long bestMiles = sourceCity == goalCity ? 0 : Long.MAX_VALUE / 4; // mu, best path through a met city
+		int meetingCity = sourceCity == goalCity ? sourceCity : -1;
+
+		while (forwardQueue.hasMoreCities() && reverseQueue.hasMoreCities()) {
+			if ((long) forwardQueue.peekFValue() + reverseQueue.peekFValue() >= 2 * bestMiles) {
+				break;
+			}
+			// expand the direction with the smaller frontier
+			boolean forwardStep = forwardQueue.size() <= reverseQueue.size();
+			PathTracker tracker = forwardStep ? forward : reverseTracker;
+			PathTracker other = forwardStep ? reverseTracker : forward;
+			FrontierQueue queue = forwardStep ? forwardQueue : reverseQueue;
+
+			int parentCity = queue.pop();
+			if (forwardStep) {
+				searchLog.pop(parentCity);
+			}
+			expandedCount++;
+			if ((expandedCount & (AStarSearch.stopPollInterval - 1)) == 0) {
+				AStarSearch.checkStopCondition(stopCondition);
+			}
+			int milesToParentCity = tracker.getMilesToCity(parentCity);
+			for (int edge = adjacency.firstEdge(parentCity); edge < adjacency.endEdge(parentCity); edge++) {
+				int nextCity = adjacency.getTarget(edge);
+				int miles = milesToParentCity + adjacency.getWeight(edge);
+				edgeCount++;
+				if (miles < tracker.getMilesToCity(nextCity)) {
+					boolean queued = queue.contains(nextCity);
+					pushCount += queued ? 0 : 1;
+					tracker.setMilesToCity(nextCity, miles);
+					tracker.setPreviousCity(nextCity, parentCity);
+					tracker.setCostFunction(nextCity, miles + tracker.getHeuristic(nextCity));
+					int key = forwardStep ? forwardKey(forward, nextCity) : reverseKey(forward, nextCity);
+					queue.update(nextCity, key, miles, parentCity);
+					updateCount++;
+					if (forwardStep) {
+						if (queued) {
+							searchLog.decreaseKey(nextCity, tracker.getCostFunction(nextCity), miles, parentCity);
+						} else {
+							searchLog.push(nextCity, tracker.getCostFunction(nextCity), miles, parentCity);
+						}
+						maxForwardFrontier = Math.max(forwardQueue.size(), maxForwardFrontier);
+					}
+				}
+				if (other.isReached(nextCity)
+						&& (long) tracker.getMilesToCity(nextCity) + other.getMilesToCity(nextCity) < bestMiles) {
+					bestMiles = (long) tracker.getMilesToCity(nextCity) + other.getMilesToCity(nextCity);
+					meetingCity = nextCity;
+				}
+			}
+		}
+		if (meetingCity < 0) {
+			return false;
+		}
+
+		// follow the reverse search from the meeting city to the goal
+		int city = meetingCity;
+		while (city != goalCity) {
+			int nextCity = reverseTracker.getPreviousCity(city);
+			int miles = forward.getMilesToCity(city) + reverseTracker.getMilesToCity(city)
+					- reverseTracker.getMilesToCity(nextCity);
+			forward.setPreviousCity(nextCity, city);
+			forward.setMilesToCity(nextCity, miles);
+			forward.setCostFunction(nextCity, miles + forward.getHeuristic(nextCity));
+			city = nextCity;
+		}
+		return true;
+	}
+
+	/**
+	 * @param stopCondition
+	 *            polled while searching, see AStarSearch.setStopCondition()
+	 */
+	public void setStopCondition(BooleanSupplier stopCondition) {
+		this.stopCondition = stopCondition;
+	}
+
+	/**
+	 * @return cities expanded by both directions of the last search
+	 */
+	public int getExpandedCount() {
+		return expandedCount;
+	}
+
+	/**
+	 * @return frontier updates made by both directions of the last search
+	 */
+	public int getUpdateCount() {
+		return updateCount;
+	}
+
+	/**
+	 * @return cities added to either queue in the last search, the other
+	 *         updates were decrease-keys
+	 */
+	public int getPushCount() {
+		return pushCount;
+	}
+
+	/**
+	 * @return edges relaxed by both directions of the last search
+	 */
+	public int getEdgeCount() {
+		return edgeCount;
+	}
+
+	public int getMaxForwardFrontier() {
+		return maxForwardFrontier;
+	}
+
+	private int forwardKey(PathTracker forward, int city) {
+		return 2 * forward.getMilesToCity(city) + forward.getHeuristic(city) - reverseTracker.getHeuristic(city);
+	}
+
+	private int reverseKey(PathTracker forward, int city) {
+		return 2 * reverseTracker.getMilesToCity(city) + reverseTracker.getHeuristic(city) - forward.getHeuristic(city);
+	}
+}
@@ -0,0 +1,307 @@
+package starsearch;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.IntFunction;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * A compiled, memory-mapped graph file. Searches read the weights straight from
+ * the mapped buffer, so opening a file costs a checksum pass and no parsing.
+ * Files are mapped as a single buffer, so they are limited to 2 GB.
+ *
+ * Layout, all ints big-endian:
+ *
+ * <pre>
+ * header  magic | version | kind | numCities | noEdgeValue | weightCount | titleBytes | CRC32
+ * DENSE   numCities x numCities matrix, row by row
+ * SPARSE  CSR offsets (numCities + 1) | targets (weightCount) | weights (weightCount)
+ * titles  2 * numCities + 1 offsets into the UTF-8 title bytes | title bytes
+ * </pre>
+ *
+ * Title k is the name (k = 2 * city) or code (k = 2 * city + 1) of a city. The
+ * CRC32 covers everything after the header.
+ */
+public class BinaryGraphFile {
+	public static final int MAGIC = 0x41534752; // "ASGR"
+	public static final int VERSION = 1;
+	public static final int DENSE = 0;
+	public static final int SPARSE = 1;
+
+	private static final int headerSize = 32;
+
+	private final int kind;
+	private final int numCities;
+	private final int noEdgeValue;
+	private final IntBuffer matrix; // DENSE only
+	private final CsrGraph adjacency; // SPARSE only
+	private final IntBuffer titleOffsets;
+	private final ByteBuffer titleBytes;
+
+	private BinaryGraphFile(MappedByteBuffer buffer, String fileName) throws IOException {
+		if (buffer.capacity() < headerSize || buffer.getInt(0) != MAGIC) {
+			throw new GraphFormatException(fileName, 1, 1, "not a compiled graph file");
+		}
+		if (buffer.getInt(4) != VERSION) {
+			throw new GraphFormatException(fileName, 1, 5, "unsupported version " + buffer.getInt(4));
+		}
+		kind = buffer.getInt(8);
+		if (kind != DENSE && kind != SPARSE) {
+			throw new GraphFormatException(fileName, 1, 9, "unknown graph kind " + kind);
+		}
+		numCities = buffer.getInt(12);
+		noEdgeValue = buffer.getInt(16);
+		int weightCount = buffer.getInt(20);
+		int titleLength = buffer.getInt(24);
+
+		long expectedSize = headerSize + 4L * (kind == DENSE ? weightCount : numCities + 1 + 2L * weightCount)
+				+ 4L * (2 * numCities + 1) + titleLength;
+		if (buffer.capacity() != expectedSize) {
+			throw new GraphFormatException(fileName, 1, 1,
+					"file is " + buffer.capacity() + " bytes, header describes " + expectedSize);
+		}
+		CRC32 crc = new CRC32();
+		crc.update(buffer.duplicate().position(headerSize));
+		if ((int) crc.getValue() != buffer.getInt(28)) {
+			throw new GraphFormatException(fileName, 1, 29, "checksum mismatch");
+		}
+
+		int position = headerSize;
+		if (kind == DENSE) {
+			matrix = slice(buffer, position, weightCount).asIntBuffer();
+			adjacency = null;
+			position += 4 * weightCount;
+		} else {
+			matrix = null;
+			IntBuffer offsets = slice(buffer, position, numCities + 1).asIntBuffer();
+			position += 4 * (numCities + 1);
+			IntBuffer targets = slice(buffer, position, weightCount).asIntBuffer();
+			position += 4 * weightCount;
+			IntBuffer weights = slice(buffer, position, weightCount).asIntBuffer();
+			position += 4 * weightCount;
+			adjacency = new CsrGraph(offsets, targets, weights);
+		}
+		titleOffsets = slice(buffer, position, 2 * numCities + 1).asIntBuffer();
+		position += 4 * (2 * numCities + 1);
+		titleBytes = buffer.duplicate().position(position).slice();
+	}
+
+	/**
+	 * Maps a compiled graph file & verifies its checksum.
+	 *
+	 * @param path
+	 * @return BinaryGraphFile
+	 * @throws IOException
+	 *             if the file cannot be read, or GraphFormatException if it is
+	 *             not a valid compiled graph file
+	 */
+	public static BinaryGraphFile open(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			return new BinaryGraphFile(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()),
+					String.valueOf(path.getFileName()));
+		}
+	}
+
+	/**
+	 * Checks for the compiled graph file magic number.
+	 *
+	 * @param path
+	 * @return true if the file starts with MAGIC
+	 * @throws IOException
+	 */
+	public static boolean isBinaryGraphFile(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			ByteBuffer magic = ByteBuffer.allocate(4);
+			int read = 0;
+			while (magic.hasRemaining() && read >= 0) {
+				read = channel.read(magic);
+			}
+			return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+		}
+	}
+
+	/**
+	 * Writes a Graph in the compiled format. Graphs where at least a quarter of
+	 * all city pairs are connected are stored as a DENSE matrix, others as
+	 * SPARSE CSR adjacency.
+	 *
+	 * @param graph
+	 * @param path
+	 *            output file, replaced if it exists
+	 * @throws IOException
+	 */
+	public static void write(Graph graph, Path path) throws IOException {
+		int n = graph.length();
+		CsrGraph csr = graph.getAdjacency();
+		boolean fitsDense = (long) n * n * 4 < Integer.MAX_VALUE;
+		int kind = fitsDense && (long) csr.edgeCount() * 4 >= (long) n * n ? DENSE : SPARSE;
+		write(path, kind, csr, graph, graph::getCityName, graph::getCityCode, graph.noEdgeValue);
+	}
+
+	/**
+	 * Writes an adjacency in the SPARSE compiled format, for graphs too large to
+	 * hold as a Graph matrix.
+	 *
+	 * @param adjacency
+	 * @param cityNames
+	 *            name of each city
+	 * @param cityCodes
+	 *            code of each city
+	 * @param noEdgeValue
+	 *            returned by getValue() for pairs that are not connected
+	 * @param path
+	 *            output file, replaced if it exists
+	 * @throws IOException
+	 */
+	public static void write(CsrGraph adjacency, IntFunction<String> cityNames, IntFunction<String> cityCodes,
+			int noEdgeValue, Path path) throws IOException {
+		write(path, SPARSE, adjacency, null, cityNames, cityCodes, noEdgeValue);
+	}
+
+	/**
+	 * @param graph
+	 *            source of the DENSE matrix values, unused for SPARSE
+	 */
+	private static void write(Path path, int kind, CsrGraph csr, Graph graph, IntFunction<String> cityNames,
+			IntFunction<String> cityCodes, int noEdgeValue) throws IOException {
+		int n = csr.length();
+
+		// encode titles up front, their total length goes in the header
+		byte[][] titles = new byte[2 * n][];
+		int titleLength = 0;
+		for (int i = 0; i < n; i++) {
+			titles[2 * i] = encode(cityNames.apply(i));
+			titles[2 * i + 1] = encode(cityCodes.apply(i));
+			titleLength += titles[2 * i].length + titles[2 * i + 1].length;
+		}
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			channel.position(headerSize);
+			CRC32 crc = new CRC32();
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+					new CheckedOutputStream(Channels.newOutputStream(channel), crc), 64 * 1024));
+			int weightCount;
+			if (kind == DENSE) {
+				weightCount = n * n;
+				for (int i = 0; i < n; i++) {
+					for (int j = 0; j < n; j++) {
+						out.writeInt(graph.getValue(i, j));
+					}
+				}
+			} else {
+				weightCount = csr.edgeCount();
+				for (int i = 0; i <= n; i++) {
+					out.writeInt(i < n ? csr.firstEdge(i) : csr.edgeCount());
+				}
+				for (int e = 0; e < weightCount; e++) {
+					out.writeInt(csr.getTarget(e));
+				}
+				for (int e = 0; e < weightCount; e++) {
+					out.writeInt(csr.getWeight(e));
+				}
+			}
+			int offset = 0;
+			for (int k = 0; k < titles.length; k++) {
+				out.writeInt(offset);
+				offset += titles[k].length;
+			}
+			out.writeInt(offset);
+			for (int k = 0; k < titles.length; k++) {
+				out.write(titles[k]);
+			}
+			out.flush();
+
+			ByteBuffer header = ByteBuffer.allocate(headerSize);
+			header.putInt(MAGIC).putInt(VERSION).putInt(kind).putInt(n).putInt(noEdgeValue).putInt(weightCount)
+					.putInt(titleLength).putInt((int) crc.getValue());
+			header.flip();
+			channel.write(header, 0);
+		}
+	}
+
+	/**
+	 * Compiles a text graph file. Usage: BinaryGraphFile &lt;input.txt&gt;
+	 * &lt;output.bin&gt;
+	 *
+	 * @param args
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length != 2) {
+			System.err.println("Usage: BinaryGraphFile <input.txt> <output.bin>");
+			System.exit(2);
+		}
+		Graph graph = new Graph(Path.of(args[0]).toFile());
+		write(graph, Path.of(args[1]));
+		System.out.println(args[1] + ": " + graph.length() + " cities, " + Files.size(Path.of(args[1])) + " bytes");
+	}
+
+	public boolean isDense() {
+		return kind == DENSE;
+	}
+
+	public int length() {
+		return numCities;
+	}
+
+	public int getNoEdgeValue() {
+		return noEdgeValue;
+	}
+
+	/**
+	 * Returns the stored value at row & column, as the text matrix holds it.
+	 * SPARSE files return noEdgeValue for pairs that are not connected.
+	 */
+	public int getValue(int row, int column) {
+		if (matrix != null) {
+			return matrix.get(row * numCities + column);
+		}
+		return adjacency.getWeight(row, column, noEdgeValue);
+	}
+
+	/**
+	 * @return the mapped CSR adjacency of a SPARSE file, null for DENSE files
+	 */
+	public CsrGraph getAdjacency() {
+		return adjacency;
+	}
+
+	public String getCityName(int index) {
+		return title(2 * index);
+	}
+
+	public String getCityCode(int index) {
+		return title(2 * index + 1);
+	}
+
+	private String title(int k) {
+		int start = titleOffsets.get(k);
+		int length = titleOffsets.get(k + 1) - start;
+		if (length == 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		titleBytes.get(start, bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static byte[] encode(String title) {
+		return title == null ? new byte[0] : title.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static ByteBuffer slice(ByteBuffer buffer, int position, int ints) {
+		return buffer.duplicate().position(position).limit(position + 4 * ints).slice();
+	}
+}
@@ -0,0 +1,177 @@
+package starsearch;
+
+import java.util.Arrays;
+
+/**
+ * Dial's bucket queue of cities, with one bucket per f() value. Updates are
+ * O(1) and pops scan forward from the lowest non-empty bucket, so this suits
+ * graphs with small integer costs. The bucket array grows to the largest f()
+ * seen.
+ *
+ * The bucket being popped from is sorted by the tie-breaks when the pops reach
+ * it, & kept in that order, so a pop takes its head. A city added to it is
+ * usually further along its path than those already there, so it is placed
+ * near the head.
+ */
+public class BucketQueue implements FrontierQueue {
+	private int[] bucketHead; // first city with each f(), -1 if none
+	private int[] next; // doubly linked bucket lists
+	private int[] prev;
+	private int[] fValue;
+	private int[] gValue;
+	private boolean[] queued;
+	private long[] ties; // cities of the bucket being sorted, by g() then index
+	private int lowestBucket; // no city is queued below this f()
+	private int highestBucket; // nor above this one
+	private int sortedBucket = -1; // bucket kept in tie-break order
+	private int size;
+
+	/**
+	 * Constructor
+	 *
+	 * @param numCities
+	 *            number of cities in the graph
+	 */
+	BucketQueue(int numCities) {
+		bucketHead = new int[64];
+		next = new int[numCities];
+		prev = new int[numCities];
+		fValue = new int[numCities];
+		gValue = new int[numCities];
+		queued = new boolean[numCities];
+		ties = new long[numCities];
+		Arrays.fill(bucketHead, -1);
+	}
+
+	@Override
+	public void update(int cityIndex, int fVal, int gVal, int processingCity) {
+		if (fVal < 0) {
+			throw new IllegalArgumentException("BucketQueue keys must not be negative: " + fVal);
+		}
+		if (queued[cityIndex]) {
+			unlink(cityIndex);
+			size--;
+		}
+		if (fVal >= bucketHead.length) {
+			int oldLength = bucketHead.length;
+			bucketHead = Arrays.copyOf(bucketHead, Math.max(fVal + 1, oldLength * 2));
+			Arrays.fill(bucketHead, oldLength, bucketHead.length, -1);
+		}
+		fValue[cityIndex] = fVal;
+		gValue[cityIndex] = gVal;
+		link(cityIndex);
+		lowestBucket = Math.min(lowestBucket, fVal);
+		highestBucket = Math.max(highestBucket, fVal);
+		size++;
+	}
+
+	@Override
+	public int pop() {
+		int best = bucketHead[peekFValue()];
+		unlink(best);
+		size--;
+		return best;
+	}
+
+	@Override
+	public int peekFValue() {
+		while (bucketHead[lowestBucket] < 0) {
+			lowestBucket++;
+		}
+		if (lowestBucket != sortedBucket) {
+			sort(lowestBucket);
+		}
+		return lowestBucket;
+	}
+
+	@Override
+	public boolean hasMoreCities() {
+		return size > 0;
+	}
+
+	@Override
+	public boolean contains(int cityIndex) {
+		return queued[cityIndex];
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public void clear() {
+		for (int b = lowestBucket; size > 0 && b <= highestBucket; b++) {
+			for (int c = bucketHead[b]; c >= 0; c = next[c]) {
+				queued[c] = false;
+				size--;
+			}
+			bucketHead[b] = -1;
+		}
+		lowestBucket = 0;
+		highestBucket = 0;
+		sortedBucket = -1;
+		size = 0;
+	}
+
+	/**
+	 * Puts a bucket in tie-break order, all at once.
+	 */
+	private void sort(int bucket) {
+		int count = 0;
+		for (int c = bucketHead[bucket]; c >= 0; c = next[c]) {
+			ties[count++] = ((long) (Integer.MAX_VALUE - gValue[c]) << 32) | c;
+		}
+		Arrays.sort(ties, 0, count);
+		int after = -1;
+		for (int i = count - 1; i >= 0; i--) {
+			int c = (int) ties[i];
+			next[c] = after;
+			prev[c] = -1;
+			if (after >= 0) {
+				prev[after] = c;
+			}
+			after = c;
+		}
+		bucketHead[bucket] = after;
+		sortedBucket = bucket;
+	}
+
+	/**
+	 * Adds a city to its bucket: at the head, or after the cities that precede
+	 * it if the bucket is the sorted one.
+	 */
+	private void link(int city) {
+		int f = fValue[city];
+		int before = -1;
+		int after = bucketHead[f];
+		while (f == sortedBucket && after >= 0
+				&& FrontierQueue.precedes(f, gValue[after], after, f, gValue[city], city)) {
+			before = after;
+			after = next[after];
+		}
+		next[city] = after;
+		prev[city] = before;
+		if (after >= 0) {
+			prev[after] = city;
+		}
+		if (before >= 0) {
+			next[before] = city;
+		} else {
+			bucketHead[f] = city;
+		}
+		queued[city] = true;
+	}
+
+	private void unlink(int city) {
+		if (prev[city] >= 0) {
+			next[prev[city]] = next[city];
+		} else {
+			bucketHead[fValue[city]] = next[city];
+		}
+		if (next[city] >= 0) {
+			prev[next[city]] = prev[city];
+		}
+		queued[city] = false;
+	}
+}
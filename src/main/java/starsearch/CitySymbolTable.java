@@ -0,0 +1,111 @@
+package starsearch;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+
+/**
+ * Maps city names & codes to graph indexes. Exact lookups go through hash maps
+ * in O(1); prefix lookups for autocomplete use a sorted array of lower case
+ * names & codes, found by binary search.
+ */
+public class CitySymbolTable {
+	private final HashMap<String, Integer> names;
+	private final HashMap<String, Integer> codes;
+	private final String[] sortedKeys; // lower case names & codes
+	private final int[] sortedCities; // city of each sorted key
+
+	/**
+	 * Builds the table for every city in a Graph.
+	 *
+	 * @param graph
+	 */
+	CitySymbolTable(Graph graph) {
+		int n = graph.length();
+		names = new HashMap<>(n * 2);
+		codes = new HashMap<>(n * 2);
+		Integer[] order = new Integer[2 * n];
+		String[] keys = new String[2 * n];
+		for (int i = 0; i < n; i++) {
+			String name = graph.getCityName(i);
+			String code = graph.getCityCode(i);
+			names.putIfAbsent(name, i);
+			if (code != null) {
+				codes.putIfAbsent(code, i);
+			}
+			keys[2 * i] = name.toLowerCase(Locale.ROOT);
+			keys[2 * i + 1] = code == null ? "" : code.toLowerCase(Locale.ROOT);
+			order[2 * i] = 2 * i;
+			order[2 * i + 1] = 2 * i + 1;
+		}
+		Arrays.sort(order, (a, b) -> keys[a].compareTo(keys[b]));
+		sortedKeys = new String[order.length];
+		sortedCities = new int[order.length];
+		for (int k = 0; k < order.length; k++) {
+			sortedKeys[k] = keys[order[k]];
+			sortedCities[k] = order[k] / 2;
+		}
+	}
+
+	/**
+	 * Returns the index of a city. Names are matched before codes, both exactly.
+	 *
+	 * @param cityName
+	 *            Can be either the full city name or the city code.
+	 * @return the index of the city, -1 if not found.
+	 */
+	public int indexOf(String cityName) {
+		Integer city = names.get(cityName);
+		if (city == null) {
+			city = codes.get(cityName);
+		}
+		return city == null ? -1 : city;
+	}
+
+	/**
+	 * Finds cities whose name or code starts with a prefix, ignoring case.
+	 * Results are in order of the matching name or code, each city once.
+	 *
+	 * @param prefix
+	 * @param maxResults
+	 * @return city indexes, at most maxResults
+	 */
+	public int[] complete(String prefix, int maxResults) {
+		String key = prefix.toLowerCase(Locale.ROOT);
+		int[] results = new int[Math.min(maxResults, sortedKeys.length)];
+		int count = 0;
+		for (int k = lowerBound(key); k < sortedKeys.length && count < results.length
+				&& sortedKeys[k].startsWith(key); k++) {
+			if (!contains(results, count, sortedCities[k])) {
+				results[count++] = sortedCities[k];
+			}
+		}
+		return Arrays.copyOf(results, count);
+	}
+
+	/**
+	 * @return first position in sortedKeys not less than key
+	 */
+	private int lowerBound(String key) {
+		int low = 0;
+		int high = sortedKeys.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (sortedKeys[mid].compareTo(key) < 0) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	private static boolean contains(int[] cities, int count, int city) {
+		for (int i = 0; i < count; i++) {
+			if (cities[i] == city) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
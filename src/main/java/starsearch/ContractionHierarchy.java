@@ -0,0 +1,279 @@
+package starsearch;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * A contraction hierarchy of an undirected Graph. Cities are contracted one at
+ * a time in order of rank; contracting a city adds shortcut edges between its
+ * remaining neighbors wherever it lay on their only shortest path. A query then
+ * searches only upward, from lower to higher ranked cities, from both ends.
+ *
+ * Only upward edges are kept, as CSR adjacency indexed by the lower ranked
+ * city. The middle city of each shortcut is stored with it, so paths can be
+ * unpacked back to edges of the original Graph.
+ *
+ * Files are written & mapped like BinaryGraphFile, all ints big-endian:
+ *
+ * <pre>
+ * header  magic | version | numCities | edgeCount | sourceEdgeCount | sourceChecksum | CRC32
+ * body    rank (numCities) | CSR offsets (numCities + 1) | targets | weights | middles (edgeCount each)
+ * </pre>
+ *
+ * sourceEdgeCount & sourceChecksum are the edge count & CsrGraph.checksum() of
+ * the adjacency the hierarchy was built from, checked by matches(). The CRC32
+ * covers the body.
+ */
+public class ContractionHierarchy {
+	public static final int MAGIC = 0x41534348; // "ASCH"
+	public static final int VERSION = 2;
+
+	private static final int headerSize = 28;
+
+	private final int numCities;
+	private final int sourceEdgeCount;
+	private final int sourceChecksum;
+	private final IntBuffer rank;
+	private final CsrGraph upward;
+	private final IntBuffer middle; // middle city of each upward edge, -1 for original edges
+	private volatile GraphSnapshot matchedSnapshot; // last snapshot found to match
+
+	ContractionHierarchy(IntBuffer rank, CsrGraph upward, IntBuffer middle, int sourceEdgeCount,
+			int sourceChecksum) {
+		this.numCities = upward.length();
+		this.rank = rank;
+		this.upward = upward;
+		this.middle = middle;
+		this.sourceEdgeCount = sourceEdgeCount;
+		this.sourceChecksum = sourceChecksum;
+	}
+
+	/**
+	 * Contracts every city of a Graph. This is the slow, offline step; write()
+	 * the result to reuse it.
+	 *
+	 * @param graph
+	 * @return ContractionHierarchy
+	 */
+	public static ContractionHierarchy build(Graph graph) {
+		return new ContractionHierarchyBuilder(graph.getAdjacency()).build();
+	}
+
+	/**
+	 * Maps a hierarchy written by write() & verifies its checksum.
+	 *
+	 * @param path
+	 * @return ContractionHierarchy
+	 * @throws IOException
+	 *             if the file cannot be read, or GraphFormatException if it is
+	 *             not a valid hierarchy file
+	 */
+	public static ContractionHierarchy open(Path path) throws IOException {
+		String fileName = String.valueOf(path.getFileName());
+		MappedByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		if (buffer.capacity() < headerSize || buffer.getInt(0) != MAGIC) {
+			throw new GraphFormatException(fileName, 1, 1, "not a contraction hierarchy file");
+		}
+		if (buffer.getInt(4) != VERSION) {
+			throw new GraphFormatException(fileName, 1, 5, "unsupported version " + buffer.getInt(4));
+		}
+		int n = buffer.getInt(8);
+		int edgeCount = buffer.getInt(12);
+		long expectedSize = headerSize + 4L * (2L * n + 1 + 3L * edgeCount);
+		if (buffer.capacity() != expectedSize) {
+			throw new GraphFormatException(fileName, 1, 1,
+					"file is " + buffer.capacity() + " bytes, header describes " + expectedSize);
+		}
+		CRC32 crc = new CRC32();
+		crc.update(buffer.duplicate().position(headerSize));
+		if ((int) crc.getValue() != buffer.getInt(24)) {
+			throw new GraphFormatException(fileName, 1, 25, "checksum mismatch");
+		}
+
+		int position = headerSize;
+		IntBuffer rank = slice(buffer, position, n);
+		position += 4 * n;
+		IntBuffer offsets = slice(buffer, position, n + 1);
+		position += 4 * (n + 1);
+		IntBuffer targets = slice(buffer, position, edgeCount);
+		position += 4 * edgeCount;
+		IntBuffer weights = slice(buffer, position, edgeCount);
+		position += 4 * edgeCount;
+		IntBuffer middle = slice(buffer, position, edgeCount);
+		return new ContractionHierarchy(rank, new CsrGraph(offsets, targets, weights), middle, buffer.getInt(16),
+				buffer.getInt(20));
+	}
+
+	/**
+	 * Writes the hierarchy for open().
+	 *
+	 * @param path
+	 *            output file, replaced if it exists
+	 * @throws IOException
+	 */
+	public void write(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			channel.position(headerSize);
+			CRC32 crc = new CRC32();
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+					new CheckedOutputStream(Channels.newOutputStream(channel), crc), 64 * 1024));
+			for (int city = 0; city < numCities; city++) {
+				out.writeInt(rank.get(city));
+			}
+			for (int city = 0; city <= numCities; city++) {
+				out.writeInt(city < numCities ? upward.firstEdge(city) : upward.edgeCount());
+			}
+			for (int edge = 0; edge < upward.edgeCount(); edge++) {
+				out.writeInt(upward.getTarget(edge));
+			}
+			for (int edge = 0; edge < upward.edgeCount(); edge++) {
+				out.writeInt(upward.getWeight(edge));
+			}
+			for (int edge = 0; edge < upward.edgeCount(); edge++) {
+				out.writeInt(middle.get(edge));
+			}
+			out.flush();
+
+			ByteBuffer header = ByteBuffer.allocate(headerSize);
+			header.putInt(MAGIC).putInt(VERSION).putInt(numCities).putInt(upward.edgeCount()).putInt(sourceEdgeCount)
+					.putInt(sourceChecksum).putInt((int) crc.getValue());
+			header.flip();
+			channel.write(header, 0);
+		}
+	}
+
+	/**
+	 * Checks that the hierarchy was built from the current edges of a graph.
+	 *
+	 * @param graph
+	 * @return true if the hierarchy can answer queries on graph
+	 */
+	public boolean matches(Graph graph) {
+		return matches(graph.getSnapshot());
+	}
+
+	/**
+	 * Checks that the hierarchy was built from the edges of a snapshot: the same
+	 * number of cities & edges, & the same checksum of the adjacency. Any edit of
+	 * a weight changes the checksum. Snapshots never change, so the last one
+	 * found to match is remembered & only a new snapshot is checksummed.
+	 *
+	 * @param snapshot
+	 * @return true if the hierarchy can answer queries on snapshot
+	 */
+	public boolean matches(GraphSnapshot snapshot) {
+		if (snapshot == matchedSnapshot) {
+			return true;
+		}
+		CsrGraph adjacency = snapshot.getAdjacency();
+		if (numCities != snapshot.length() || sourceEdgeCount != adjacency.edgeCount()
+				|| sourceChecksum != adjacency.checksum()) {
+			return false;
+		}
+		matchedSnapshot = snapshot;
+		return true;
+	}
+
+	public int length() {
+		return numCities;
+	}
+
+	/**
+	 * @return position of the city in the contraction order, 0 first
+	 */
+	public int getRank(int city) {
+		return rank.get(city);
+	}
+
+	/**
+	 * @return edges from each city to its higher ranked neighbors
+	 */
+	public CsrGraph getUpward() {
+		return upward;
+	}
+
+	/**
+	 * @return total number of upward edges & shortcuts
+	 */
+	public int edgeCount() {
+		return upward.edgeCount();
+	}
+
+	/**
+	 * @return the number of upward edges that are shortcuts
+	 */
+	public int shortcutCount() {
+		int count = 0;
+		for (int edge = 0; edge < upward.edgeCount(); edge++) {
+			if (middle.get(edge) >= 0) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @return the city a shortcut passes through, -1 for an original edge
+	 */
+	public int getMiddle(int edge) {
+		return middle.get(edge);
+	}
+
+	/**
+	 * Finds the upward edge between two neighboring cities.
+	 *
+	 * @param city
+	 * @param other
+	 * @return edge index in getUpward(), -1 if they are not neighbors
+	 */
+	public int findEdge(int city, int other) {
+		int lower = getRank(city) < getRank(other) ? city : other;
+		int higher = lower == city ? other : city;
+		for (int edge = upward.firstEdge(lower); edge < upward.endEdge(lower); edge++) {
+			if (upward.getTarget(edge) == higher) {
+				return edge;
+			}
+		}
+		return -1;
+	}
+
+	private static IntBuffer slice(MappedByteBuffer buffer, int position, int ints) {
+		return buffer.duplicate().position(position).limit(position + 4 * ints).slice().asIntBuffer();
+	}
+
+	/**
+	 * Builds & writes the hierarchy of a graph file. Usage: ContractionHierarchy
+	 * &lt;graph file&gt; &lt;output.ch&gt;
+	 *
+	 * @param args
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length != 2) {
+			System.err.println("Usage: ContractionHierarchy <graph file> <output.ch>");
+			System.exit(2);
+		}
+		Graph graph = new Graph(Path.of(args[0]).toFile());
+		long start = System.nanoTime();
+		ContractionHierarchy hierarchy = build(graph);
+		long millis = (System.nanoTime() - start) / 1000000;
+		hierarchy.write(Path.of(args[1]));
+		System.out.println(args[1] + ": " + graph.length() + " cities, " + hierarchy.shortcutCount() + " shortcuts, "
+				+ Files.size(Path.of(args[1])) + " bytes, built in " + millis + " ms");
+	}
+}
@@ -0,0 +1,274 @@
+package starsearch;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Builds a ContractionHierarchy. Cities are contracted in order of priority:
+ * twice the shortcuts added minus edges removed, plus the number of neighbors
+ * already contracted, which spreads contraction evenly over the graph.
+ * Priorities are updated lazily, when a city reaches the front of the queue,
+ * and for the neighbors of each contracted city.
+ *
+ * A shortcut u-w through v is only added if a local Dijkstra search from u,
+ * avoiding v, finds no path to w as short as u-v-w. The witness search stops
+ * once all of v's other neighbors are settled, or gives up after a fixed
+ * number of cities, which can only add unneeded shortcuts, never drop needed
+ * ones.
+ */
+class ContractionHierarchyBuilder {
+	private final int simulateSettleLimit = 50; // witness search limits when estimating priority
+	private final int contractSettleLimit = 500; // & when contracting
+
+	private final int numCities;
+	private final int sourceEdgeCount;
+	private final int sourceChecksum;
+
+	// remaining graph: neighbors, weights & shortcut middles of uncontracted cities
+	private int[][] neighbors;
+	private int[][] weights;
+	private int[][] middles;
+	private int[] degree;
+	private int[] deletedNeighbors;
+
+	// upward edges, recorded as each city is contracted
+	private int[][] upTargets;
+	private int[][] upWeights;
+	private int[][] upMiddles;
+	private int[] rank;
+
+	// witness search state, reused with generation stamps
+	private final FrontierQueue witnessQueue;
+	private final int[] witnessDistance;
+	private final int[] witnessStamp;
+	private final int[] targetStamp; // marks the cities a witness search is looking for
+	private int witnessGeneration;
+
+	ContractionHierarchyBuilder(CsrGraph graph) {
+		numCities = graph.length();
+		sourceEdgeCount = graph.edgeCount();
+		sourceChecksum = graph.checksum();
+		neighbors = new int[numCities][];
+		weights = new int[numCities][];
+		middles = new int[numCities][];
+		degree = new int[numCities];
+		deletedNeighbors = new int[numCities];
+		for (int city = 0; city < numCities; city++) {
+			int edges = graph.degree(city);
+			neighbors[city] = new int[Math.max(edges, 2)];
+			weights[city] = new int[Math.max(edges, 2)];
+			middles[city] = new int[Math.max(edges, 2)];
+			for (int edge = graph.firstEdge(city); edge < graph.endEdge(city); edge++) {
+				int other = graph.getTarget(edge);
+				if (other != city) {
+					addOrLower(city, other, graph.getWeight(edge), -1);
+				}
+			}
+		}
+		upTargets = new int[numCities][];
+		upWeights = new int[numCities][];
+		upMiddles = new int[numCities][];
+		rank = new int[numCities];
+		witnessQueue = FrontierType.DARY_HEAP.create(numCities);
+		witnessDistance = new int[numCities];
+		witnessStamp = new int[numCities];
+		targetStamp = new int[numCities];
+	}
+
+	/**
+	 * Contracts every city.
+	 *
+	 * @return ContractionHierarchy
+	 */
+	public ContractionHierarchy build() {
+		FrontierQueue order = FrontierType.DARY_HEAP.create(numCities);
+		for (int city = 0; city < numCities; city++) {
+			order.update(city, priority(city), 0, city);
+		}
+		int nextRank = 0;
+		while (order.hasMoreCities()) {
+			int city = order.pop();
+			int priority = priority(city);
+			if (order.hasMoreCities() && priority > order.peekFValue()) {
+				order.update(city, priority, 0, city); // stale, try again later
+				continue;
+			}
+			rank[city] = nextRank++;
+			int[] contractedNeighbors = Arrays.copyOf(neighbors[city], degree[city]);
+			contract(city);
+			for (int neighbor : contractedNeighbors) {
+				order.update(neighbor, priority(neighbor), 0, neighbor);
+			}
+		}
+		return toHierarchy();
+	}
+
+	/**
+	 * Edge difference, weighted twice, plus contracted neighbors.
+	 */
+	private int priority(int city) {
+		return 2 * (shortcuts(city, true) - degree[city]) + deletedNeighbors[city];
+	}
+
+	/**
+	 * Removes a city from the remaining graph. Its remaining edges become its
+	 * upward edges, and shortcuts are added between its neighbors where needed.
+	 */
+	private void contract(int city) {
+		shortcuts(city, false);
+		int d = degree[city];
+		upTargets[city] = Arrays.copyOf(neighbors[city], d);
+		upWeights[city] = Arrays.copyOf(weights[city], d);
+		upMiddles[city] = Arrays.copyOf(middles[city], d);
+		for (int i = 0; i < d; i++) {
+			int neighbor = neighbors[city][i];
+			removeEdge(neighbor, city);
+			deletedNeighbors[neighbor]++;
+		}
+		neighbors[city] = weights[city] = middles[city] = null;
+		degree[city] = 0;
+	}
+
+	/**
+	 * Finds the shortcuts needed to contract a city.
+	 *
+	 * @param city
+	 * @param simulate
+	 *            true to only count them, false to add them
+	 * @return number of shortcuts
+	 */
+	private int shortcuts(int city, boolean simulate) {
+		int d = degree[city];
+		int count = 0;
+		for (int i = 0; i < d - 1; i++) {
+			int from = neighbors[city][i];
+			int fromWeight = weights[city][i];
+			witnessSearch(city, i, simulate ? simulateSettleLimit : contractSettleLimit);
+			for (int j = i + 1; j < d; j++) {
+				int to = neighbors[city][j];
+				int viaCity = fromWeight + weights[city][j];
+				if (getWitnessDistance(to) > viaCity) {
+					count++;
+					if (!simulate) {
+						addOrLower(from, to, viaCity, city);
+						addOrLower(to, from, viaCity, city);
+					}
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Dijkstra search over the remaining graph, skipping the city being
+	 * contracted, from its neighbor i towards its neighbors after i. Stops once
+	 * all of them are settled, once no path through the city can be beaten, or
+	 * after settleLimit cities.
+	 */
+	private void witnessSearch(int contractedCity, int i, int settleLimit) {
+		if (++witnessGeneration == Integer.MAX_VALUE) {
+			Arrays.fill(witnessStamp, 0);
+			Arrays.fill(targetStamp, 0);
+			witnessGeneration = 1;
+		}
+		int source = neighbors[contractedCity][i];
+		int maxDistance = 0;
+		int targets = 0;
+		for (int j = i + 1; j < degree[contractedCity]; j++) {
+			maxDistance = Math.max(maxDistance, weights[contractedCity][i] + weights[contractedCity][j]);
+			targetStamp[neighbors[contractedCity][j]] = witnessGeneration;
+			targets++;
+		}
+		witnessQueue.clear();
+		setWitnessDistance(source, 0);
+		witnessQueue.update(source, 0, 0, source);
+		int settled = 0;
+		while (witnessQueue.hasMoreCities() && targets > 0) {
+			int city = witnessQueue.pop();
+			int distance = getWitnessDistance(city);
+			if (distance > maxDistance || ++settled > settleLimit) {
+				break;
+			}
+			if (targetStamp[city] == witnessGeneration) {
+				targets--;
+			}
+			for (int k = 0; k < degree[city]; k++) {
+				int next = neighbors[city][k];
+				int nextDistance = distance + weights[city][k];
+				if (next != contractedCity && nextDistance < getWitnessDistance(next)) {
+					setWitnessDistance(next, nextDistance);
+					witnessQueue.update(next, nextDistance, 0, city);
+				}
+			}
+		}
+	}
+
+	private int getWitnessDistance(int city) {
+		return witnessStamp[city] == witnessGeneration ? witnessDistance[city] : Integer.MAX_VALUE;
+	}
+
+	private void setWitnessDistance(int city, int distance) {
+		witnessStamp[city] = witnessGeneration;
+		witnessDistance[city] = distance;
+	}
+
+	/**
+	 * Adds an edge to a city's list, or lowers the weight of the existing edge.
+	 */
+	private void addOrLower(int city, int other, int weight, int middle) {
+		for (int i = 0; i < degree[city]; i++) {
+			if (neighbors[city][i] == other) {
+				if (weight < weights[city][i]) {
+					weights[city][i] = weight;
+					middles[city][i] = middle;
+				}
+				return;
+			}
+		}
+		int d = degree[city];
+		if (d == neighbors[city].length) {
+			neighbors[city] = Arrays.copyOf(neighbors[city], d * 2);
+			weights[city] = Arrays.copyOf(weights[city], d * 2);
+			middles[city] = Arrays.copyOf(middles[city], d * 2);
+		}
+		neighbors[city][d] = other;
+		weights[city][d] = weight;
+		middles[city][d] = middle;
+		degree[city]++;
+	}
+
+	private void removeEdge(int city, int other) {
+		int last = --degree[city];
+		for (int i = 0; i <= last; i++) {
+			if (neighbors[city][i] == other) {
+				neighbors[city][i] = neighbors[city][last];
+				weights[city][i] = weights[city][last];
+				middles[city][i] = middles[city][last];
+				return;
+			}
+		}
+		degree[city]++; // not a neighbor
+	}
+
+	/**
+	 * Packs the recorded upward edges as CSR.
+	 */
+	private ContractionHierarchy toHierarchy() {
+		int[] offsets = new int[numCities + 1];
+		for (int city = 0; city < numCities; city++) {
+			offsets[city + 1] = offsets[city] + upTargets[city].length;
+		}
+		int[] targets = new int[offsets[numCities]];
+		int[] edgeWeights = new int[offsets[numCities]];
+		int[] edgeMiddles = new int[offsets[numCities]];
+		for (int city = 0; city < numCities; city++) {
+			System.arraycopy(upTargets[city], 0, targets, offsets[city], upTargets[city].length);
+			System.arraycopy(upWeights[city], 0, edgeWeights, offsets[city], upWeights[city].length);
+			System.arraycopy(upMiddles[city], 0, edgeMiddles, offsets[city], upMiddles[city].length);
+			upTargets[city] = upWeights[city] = upMiddles[city] = null;
+		}
+		CsrGraph upward = new CsrGraph(IntBuffer.wrap(offsets), IntBuffer.wrap(targets), IntBuffer.wrap(edgeWeights));
+		return new ContractionHierarchy(IntBuffer.wrap(rank), upward, IntBuffer.wrap(edgeMiddles), sourceEdgeCount,
+				sourceChecksum);
+	}
+}
@@ -0,0 +1,229 @@
+package starsearch;
+
+import java.util.Arrays;
+
+/**
+ * ContractionHierarchy query used by AStarSearch. Dijkstra searches from the
+ * source & goal city both go upward only, and meet at the highest ranked city
+ * of the shortest path. A city is stalled, not expanded, when a higher ranked
+ * neighbor already offers a shorter way to it. The path found is unpacked to
+ * original edges & copied into the PathTracker.
+ */
+class ContractionHierarchySearch {
+	private final ContractionHierarchy hierarchy;
+	private final CsrGraph upward;
+	private final FrontierQueue forwardQueue;
+	private final FrontierQueue reverseQueue;
+	private final int[] distance; // forward at 2 * city, reverse at 2 * city + 1
+	private final int[] parent; // previous city towards the source or goal, same layout
+	private final int[] stamp;
+	private int generation;
+	private int[] path = new int[64]; // unpacked path & miles to each city
+	private int[] pathMiles = new int[64];
+	private int pathLength;
+	private int[] upwardPath = new int[64]; // meeting city back down to the source
+	private int[] unpackStack = new int[64];
+	private int settledCount;
+	private int updateCount;
+	private int pushCount;
+	private int edgeCount;
+
+	ContractionHierarchySearch(ContractionHierarchy hierarchy) {
+		this.hierarchy = hierarchy;
+		upward = hierarchy.getUpward();
+		int n = hierarchy.length();
+		forwardQueue = FrontierType.DARY_HEAP.create(n);
+		reverseQueue = FrontierType.DARY_HEAP.create(n);
+		distance = new int[2 * n];
+		parent = new int[2 * n];
+		stamp = new int[2 * n];
+	}
+
+	/**
+	 * Finds the shortest path & records it in the PathTracker, which must be
+	 * initialized for source & goal.
+	 *
+	 * @param sourceCity
+	 * @param goalCity
+	 * @param pathTracker
+	 * @return true if the goal city was reached
+	 */
+	public boolean search(int sourceCity, int goalCity, PathTracker pathTracker) {
+		settledCount = 0;
+		updateCount = 0;
+		pushCount = 0;
+		edgeCount = 0;
+		if (++generation == Integer.MAX_VALUE) {
+			Arrays.fill(stamp, 0);
+			generation = 1;
+		}
+		forwardQueue.clear();
+		reverseQueue.clear();
+		reach(sourceCity, 0, 0, -1, forwardQueue);
+		reach(goalCity, 1, 0, -1, reverseQueue);
+		long bestMiles = Long.MAX_VALUE;
+		int meetingCity = -1;
+
+		while (forwardQueue.hasMoreCities() || reverseQueue.hasMoreCities()) {
+			// expand the side with the smaller distance
+			boolean forwardStep = !reverseQueue.hasMoreCities()
+					|| (forwardQueue.hasMoreCities() && forwardQueue.peekFValue() <= reverseQueue.peekFValue());
+			int side = forwardStep ? 0 : 1;
+			FrontierQueue queue = forwardStep ? forwardQueue : reverseQueue;
+			if (queue.peekFValue() >= bestMiles) {
+				queue.clear(); // nothing left on this side can improve the path
+				continue;
+			}
+			int city = queue.pop();
+			settledCount++;
+			int miles = getDistance(city, side);
+			int otherMiles = getDistance(city, 1 - side);
+			if (otherMiles != Integer.MAX_VALUE && (long) miles + otherMiles < bestMiles) {
+				bestMiles = (long) miles + otherMiles;
+				meetingCity = city;
+			}
+			if (isStalled(city, side, miles)) {
+				continue;
+			}
+			for (int edge = upward.firstEdge(city); edge < upward.endEdge(city); edge++) {
+				int next = upward.getTarget(edge);
+				int nextMiles = miles + upward.getWeight(edge);
+				edgeCount++;
+				if (nextMiles < getDistance(next, side)) {
+					reach(next, side, nextMiles, city, queue);
+				}
+			}
+		}
+		if (meetingCity < 0) {
+			return false;
+		}
+		unpackPath(sourceCity, meetingCity);
+		copyToPathTracker(pathTracker);
+		return true;
+	}
+
+	/**
+	 * @return cities settled by both searches of the last query
+	 */
+	public int getSettledCount() {
+		return settledCount;
+	}
+
+	/**
+	 * @return queue updates made by the last query
+	 */
+	public int getUpdateCount() {
+		return updateCount;
+	}
+
+	/**
+	 * @return cities added to either queue by the last query, the other updates
+	 *         were decrease-keys
+	 */
+	public int getPushCount() {
+		return pushCount;
+	}
+
+	/**
+	 * @return upward edges relaxed by the last query
+	 */
+	public int getEdgeCount() {
+		return edgeCount;
+	}
+
+	private void reach(int city, int side, int miles, int previous, FrontierQueue queue) {
+		int i = 2 * city + side;
+		stamp[i] = generation;
+		distance[i] = miles;
+		parent[i] = previous;
+		pushCount += queue.contains(city) ? 0 : 1;
+		queue.update(city, miles, miles, previous < 0 ? city : previous);
+		updateCount++;
+	}
+
+	private int getDistance(int city, int side) {
+		int i = 2 * city + side;
+		return stamp[i] == generation ? distance[i] : Integer.MAX_VALUE;
+	}
+
+	/**
+	 * Stall-on-demand: a city is not expanded if a higher ranked neighbor
+	 * reached by the same search gives a shorter distance to it.
+	 */
+	private boolean isStalled(int city, int side, int miles) {
+		for (int edge = upward.firstEdge(city); edge < upward.endEdge(city); edge++) {
+			int higher = getDistance(upward.getTarget(edge), side);
+			if (higher != Integer.MAX_VALUE && higher + upward.getWeight(edge) < miles) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Unpacks source ... meeting city ... goal into original edges.
+	 */
+	private void unpackPath(int sourceCity, int meetingCity) {
+		// upward path from the source, stored backwards from the meeting city
+		int upCount = 0;
+		for (int city = meetingCity; city >= 0; city = parent[2 * city]) {
+			upwardPath = ensure(upwardPath, upCount + 1);
+			upwardPath[upCount++] = city;
+		}
+		pathLength = 0;
+		append(sourceCity, 0);
+		for (int i = upCount - 1; i > 0; i--) {
+			unpackEdge(upwardPath[i], upwardPath[i - 1]);
+		}
+		for (int city = meetingCity; parent[2 * city + 1] >= 0; city = parent[2 * city + 1]) {
+			unpackEdge(city, parent[2 * city + 1]);
+		}
+	}
+
+	/**
+	 * Appends the original edges of a hierarchy edge from the last path city to
+	 * toCity. Shortcuts are expanded through their middle city with an explicit
+	 * stack, first half first.
+	 */
+	private void unpackEdge(int fromCity, int toCity) {
+		int top = 0;
+		unpackStack = ensure(unpackStack, 2);
+		unpackStack[top++] = fromCity;
+		unpackStack[top++] = toCity;
+		while (top > 0) {
+			int to = unpackStack[--top];
+			int from = unpackStack[--top];
+			int edge = hierarchy.findEdge(from, to);
+			int middle = hierarchy.getMiddle(edge);
+			if (middle < 0) {
+				append(to, pathMiles[pathLength - 1] + upward.getWeight(edge));
+				continue;
+			}
+			unpackStack = ensure(unpackStack, top + 4);
+			unpackStack[top++] = middle; // second half, done last
+			unpackStack[top++] = to;
+			unpackStack[top++] = from; // first half
+			unpackStack[top++] = middle;
+		}
+	}
+
+	private void append(int city, int miles) {
+		path = ensure(path, pathLength + 1);
+		pathMiles = ensure(pathMiles, pathLength + 1);
+		path[pathLength] = city;
+		pathMiles[pathLength++] = miles;
+	}
+
+	private void copyToPathTracker(PathTracker pathTracker) {
+		for (int i = 1; i < pathLength; i++) {
+			int city = path[i];
+			pathTracker.setPreviousCity(city, path[i - 1]);
+			pathTracker.setMilesToCity(city, pathMiles[i]);
+			pathTracker.setCostFunction(city, pathMiles[i] + pathTracker.getHeuristic(city));
+		}
+	}
+
+	private static int[] ensure(int[] array, int length) {
+		return length <= array.length ? array : Arrays.copyOf(array, Math.max(length, array.length * 2));
+	}
+}
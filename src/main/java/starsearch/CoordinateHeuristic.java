@@ -0,0 +1,209 @@
+package starsearch;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Heuristic computed on the fly from the position of each city, so memory is
+ * O(N) instead of the O(N^2) of a MatrixHeuristic. Estimates are rounded down
+ * so they stay below the straight-line distance.
+ *
+ * Coordinates are rarely exact, so a road can be a little shorter than the
+ * straight line between its ends. At load time every edge is checked, and if
+ * any is shorter than the distance between its cities all estimates are scaled
+ * down until none is. The straight-line distance obeys the triangle inequality,
+ * so the scaled estimates are consistent: h(a) <= w(a, b) + h(b) for every edge.
+ * Once the graph is edited, forSnapshot() checks the edges again & returns a
+ * copy scaled further down if a road got shorter.
+ *
+ * The coordinates file has a title line, then one line per city: city name or
+ * code, city code, and two coordinates. For HAVERSINE the coordinates are
+ * latitude & longitude in degrees and estimates are in miles; for EUCLIDEAN
+ * they are x & y in the units of the distance Graph.
+ */
+public class CoordinateHeuristic implements Heuristic {
+	public static final double EARTH_RADIUS_MILES = 3958.8;
+
+	public enum Metric {
+		HAVERSINE, // great circle distance between latitude/longitude
+		EUCLIDEAN // straight line distance between x/y
+	}
+
+	private final Metric metric;
+	private final double[] first; // latitude in radians, or x
+	private final double[] second; // longitude in radians, or y
+	private final double[] cosLatitude; // HAVERSINE only
+	private final double scale; // at most 1, keeps every estimate below its edge
+	private volatile GraphSnapshot matchedSnapshot; // last snapshot checked against scale
+	private volatile CoordinateHeuristic rescaled; // for the latest edited snapshot seen
+
+	/**
+	 * Loads the position of every city in a Graph.
+	 *
+	 * @param coordinatesFile
+	 * @param distGraph
+	 *            Graph whose city names or codes are used in the file
+	 * @param metric
+	 * @throws IOException
+	 *             if the file cannot be read, or GraphFormatException if a line
+	 *             is malformed, names an unknown city, or a city is missing
+	 * @see #getScale()
+	 */
+	CoordinateHeuristic(Path coordinatesFile, Graph distGraph, Metric metric) throws IOException {
+		this.metric = metric;
+		int n = distGraph.length();
+		first = new double[n];
+		second = new double[n];
+		cosLatitude = metric == Metric.HAVERSINE ? new double[n] : null;
+		boolean[] found = new boolean[n];
+		String fileName = String.valueOf(coordinatesFile.getFileName());
+
+		try (BufferedReader reader = Files.newBufferedReader(coordinatesFile, StandardCharsets.UTF_8)) {
+			String line = reader.readLine(); // skip the title line
+			for (int lineNum = 2; (line = reader.readLine()) != null; lineNum++) {
+				String[] tokens = line.trim().split("\\s+");
+				if (tokens.length == 1 && tokens[0].isEmpty()) {
+					continue;
+				}
+				if (tokens.length != 4) {
+					throw new GraphFormatException(fileName, lineNum, 1, "expected name, code & 2 coordinates");
+				}
+				int city = distGraph.getCityIndex(tokens[0]);
+				if (city < 0) {
+					throw new GraphFormatException(fileName, lineNum, line.indexOf(tokens[0]) + 1,
+							"unknown city " + tokens[0]);
+				}
+				double a = parseCoordinate(tokens[2], line, fileName, lineNum);
+				double b = parseCoordinate(tokens[3], line, fileName, lineNum);
+				if (metric == Metric.HAVERSINE) {
+					first[city] = Math.toRadians(a);
+					second[city] = Math.toRadians(b);
+					cosLatitude[city] = Math.cos(first[city]);
+				} else {
+					first[city] = a;
+					second[city] = b;
+				}
+				found[city] = true;
+			}
+		}
+		for (int i = 0; i < n; i++) {
+			if (!found[i]) {
+				throw new GraphFormatException(fileName, 1, 1, "no coordinates for " + distGraph.getCityName(i));
+			}
+		}
+		GraphSnapshot snapshot = distGraph.getSnapshot();
+		scale = edgeScale(snapshot.getAdjacency());
+		matchedSnapshot = snapshot;
+	}
+
+	/**
+	 * Copy with the same positions & a lower scale.
+	 */
+	private CoordinateHeuristic(CoordinateHeuristic positions, double scale, GraphSnapshot snapshot) {
+		metric = positions.metric;
+		first = positions.first;
+		second = positions.second;
+		cosLatitude = positions.cosLatitude;
+		this.scale = scale;
+		matchedSnapshot = snapshot;
+	}
+
+	/**
+	 * Returns this heuristic if no edge of snapshot is shorter than its scaled
+	 * estimate, or else a copy scaled down to fit snapshot.
+	 *
+	 * @throws IllegalArgumentException
+	 *             if snapshot has a different number of cities
+	 */
+	@Override
+	public Heuristic forSnapshot(GraphSnapshot snapshot) {
+		if (snapshot == matchedSnapshot) {
+			return this;
+		}
+		CoordinateHeuristic replacement = rescaled;
+		if (replacement != null && snapshot == replacement.matchedSnapshot) {
+			return replacement;
+		}
+		if (snapshot.length() != first.length) {
+			throw new IllegalArgumentException(
+					"Coordinates are for " + first.length + " cities, not " + snapshot.length());
+		}
+		double snapshotScale = edgeScale(snapshot.getAdjacency());
+		if (snapshotScale >= scale) {
+			matchedSnapshot = snapshot;
+			return this;
+		}
+		replacement = new CoordinateHeuristic(this, snapshotScale, snapshot);
+		rescaled = replacement;
+		return replacement;
+	}
+
+	/**
+	 * Scaled straight-line distances are consistent for the edges checked.
+	 */
+	@Override
+	public boolean isConsistent() {
+		return true;
+	}
+
+	/**
+	 * Returns the factor applied to the straight-line distance so that no edge
+	 * is shorter than the estimate between its cities. 1 when the coordinates
+	 * agree with every edge of the Graph.
+	 *
+	 * @return double between 0 & 1
+	 */
+	public double getScale() {
+		return scale;
+	}
+
+	@Override
+	public int estimate(int city, int goalCity) {
+		return (int) (scale * distance(city, goalCity));
+	}
+
+	/**
+	 * @return the lowest ratio of an edge's weight to the distance between its
+	 *         cities, or 1 if none is lower. It is rounded down a little so
+	 *         that rounding the products cannot break consistency.
+	 */
+	private double edgeScale(CsrGraph adjacency) {
+		double lowest = 1;
+		for (int city = 0; city < adjacency.length(); city++) {
+			for (int e = adjacency.firstEdge(city); e < adjacency.endEdge(city); e++) {
+				double straight = distance(city, adjacency.getTarget(e));
+				if (adjacency.getWeight(e) < lowest * straight) {
+					lowest = adjacency.getWeight(e) / straight;
+				}
+			}
+		}
+		return lowest < 1 ? lowest * (1 - 1e-9) : 1;
+	}
+
+	/**
+	 * @return straight-line distance between two cities, not rounded
+	 */
+	private double distance(int city, int goalCity) {
+		if (metric == Metric.EUCLIDEAN) {
+			double dx = first[city] - first[goalCity];
+			double dy = second[city] - second[goalCity];
+			return Math.sqrt(dx * dx + dy * dy);
+		}
+		double sinLat = Math.sin((first[goalCity] - first[city]) / 2);
+		double sinLon = Math.sin((second[goalCity] - second[city]) / 2);
+		double a = sinLat * sinLat + cosLatitude[city] * cosLatitude[goalCity] * sinLon * sinLon;
+		return 2 * EARTH_RADIUS_MILES * Math.asin(Math.sqrt(Math.min(1, a)));
+	}
+
+	private static double parseCoordinate(String token, String line, String fileName, int lineNum)
+			throws GraphFormatException {
+		try {
+			return Double.parseDouble(token);
+		} catch (NumberFormatException e) {
+			throw new GraphFormatException(fileName, lineNum, line.indexOf(token) + 1, "bad coordinate " + token);
+		}
+	}
+}
@@ -0,0 +1,191 @@
+package starsearch;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * Compressed sparse row adjacency of a graph. The edges of city c are the
+ * indexes firstEdge(c) to endEdge(c) - 1, and each edge has a target city and
+ * a weight, so neighbors are iterated in O(degree) without allocating. The
+ * arrays may be on the heap or mapped from a compiled graph file.
+ */
+public class CsrGraph {
+	private final IntBuffer offsets; // first edge of each city, plus the total edge count
+	private final IntBuffer targets;
+	private final IntBuffer weights;
+
+	/**
+	 * Builds the adjacency of a matrix GraphSnapshot. Only the upper triangle of
+	 * the matrix is read, and neighbors are listed in city order.
+	 *
+	 * @param graph
+	 */
+	CsrGraph(GraphSnapshot graph) {
+		int n = graph.length();
+		int[] offsets = new int[n + 1];
+		for (int c = 0; c < n; c++) {
+			offsets[c + 1] = offsets[c] + countNeighbors(graph, c);
+		}
+		int[] targets = new int[offsets[n]];
+		int[] weights = new int[offsets[n]];
+		for (int c = 0; c < n; c++) {
+			int e = offsets[c];
+			for (int i = 0; i < n; i++) {
+				if (isEdge(graph, c, i)) {
+					targets[e] = i;
+					weights[e] = graph.getDistance(c, i);
+					e++;
+				}
+			}
+		}
+		this.offsets = IntBuffer.wrap(offsets);
+		this.targets = IntBuffer.wrap(targets);
+		this.weights = IntBuffer.wrap(weights);
+	}
+
+	/**
+	 * Builds the adjacency of an undirected edge list. Each edge is added in both
+	 * directions.
+	 *
+	 * @param numCities
+	 * @param from
+	 *            first city of each edge
+	 * @param to
+	 *            second city of each edge
+	 * @param weight
+	 *            weight of each edge
+	 */
+	CsrGraph(int numCities, int[] from, int[] to, int[] weight) {
+		int[] offsets = new int[numCities + 1];
+		for (int i = 0; i < from.length; i++) {
+			offsets[from[i] + 1]++;
+			offsets[to[i] + 1]++;
+		}
+		for (int c = 0; c < numCities; c++) {
+			offsets[c + 1] += offsets[c];
+		}
+		int[] targets = new int[offsets[numCities]];
+		int[] weights = new int[offsets[numCities]];
+		int[] fill = Arrays.copyOf(offsets, numCities);
+		for (int i = 0; i < from.length; i++) {
+			targets[fill[from[i]]] = to[i];
+			weights[fill[from[i]]++] = weight[i];
+			targets[fill[to[i]]] = from[i];
+			weights[fill[to[i]]++] = weight[i];
+		}
+		this.offsets = IntBuffer.wrap(offsets);
+		this.targets = IntBuffer.wrap(targets);
+		this.weights = IntBuffer.wrap(weights);
+	}
+
+	/**
+	 * Uses existing CSR arrays, such as buffers mapped from a compiled graph
+	 * file. The buffers are read with absolute gets only.
+	 *
+	 * @param offsets
+	 *            numCities + 1 entries
+	 * @param targets
+	 * @param weights
+	 */
+	CsrGraph(IntBuffer offsets, IntBuffer targets, IntBuffer weights) {
+		this.offsets = offsets;
+		this.targets = targets;
+		this.weights = weights;
+	}
+
+	public int length() {
+		return offsets.limit() - 1;
+	}
+
+	public int edgeCount() {
+		return targets.limit();
+	}
+
+	public int degree(int city) {
+		return offsets.get(city + 1) - offsets.get(city);
+	}
+
+	public int firstEdge(int city) {
+		return offsets.get(city);
+	}
+
+	public int endEdge(int city) {
+		return offsets.get(city + 1);
+	}
+
+	public int getTarget(int edge) {
+		return targets.get(edge);
+	}
+
+	public int getWeight(int edge) {
+		return weights.get(edge);
+	}
+
+	/**
+	 * Returns the weight of the edge between two cities.
+	 *
+	 * @param city
+	 * @param other
+	 * @param noEdgeValue
+	 * @return weight, or noEdgeValue if the cities are not connected
+	 */
+	public int getWeight(int city, int other, int noEdgeValue) {
+		for (int e = firstEdge(city); e < endEdge(city); e++) {
+			if (targets.get(e) == other) {
+				return weights.get(e);
+			}
+		}
+		return noEdgeValue;
+	}
+
+	/**
+	 * Returns a CRC32 of every city's degree, neighbors & weights, in the order
+	 * they are listed, so two adjacencies with the same checksum almost surely
+	 * have the same edges.
+	 *
+	 * @return int checksum
+	 */
+	public int checksum() {
+		CRC32 crc = new CRC32();
+		ByteBuffer chunk = ByteBuffer.allocate(64 * 1024);
+		for (int city = 0; city < length(); city++) {
+			if (chunk.remaining() < 4) {
+				crc.update(chunk.flip());
+				chunk.clear();
+			}
+			chunk.putInt(degree(city));
+			for (int edge = firstEdge(city); edge < endEdge(city); edge++) {
+				if (chunk.remaining() < 8) {
+					crc.update(chunk.flip());
+					chunk.clear();
+				}
+				chunk.putInt(targets.get(edge)).putInt(weights.get(edge));
+			}
+		}
+		crc.update(chunk.flip());
+		return (int) crc.getValue();
+	}
+
+	private static int countNeighbors(GraphSnapshot graph, int city) {
+		int count = 0;
+		for (int i = 0; i < graph.length(); i++) {
+			if (isEdge(graph, city, i)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Checks the upper triangle entry for the pair, values below noEdgeValue are
+	 * edges.
+	 */
+	private static boolean isEdge(GraphSnapshot graph, int city, int other) {
+		if (other < city) {
+			return graph.getValue(other, city) < graph.getNoEdgeValue();
+		}
+		return graph.getValue(city, other) < graph.getNoEdgeValue();
+	}
+}
@@ -0,0 +1,101 @@
+package starsearch;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/**
+ * Shortest distances from a set of source cities to a set of target cities,
+ * as computed by BatchSearch.distanceTable(). The miles are kept in a single
+ * row-major int array, one row per source.
+ */
+public class DistanceTable {
+	private final Graph distGraph;
+	private final int[] sources;
+	private final int[] targets;
+	private final int[] miles; // miles[row * targets.length + column]
+
+	/**
+	 * Constructor
+	 *
+	 * @param distGraph
+	 * @param sources
+	 * @param targets
+	 * @param miles
+	 *            row-major, -1 where a target cannot be reached
+	 */
+	DistanceTable(Graph distGraph, int[] sources, int[] targets, int[] miles) {
+		this.distGraph = distGraph;
+		this.sources = sources;
+		this.targets = targets;
+		this.miles = miles;
+	}
+
+	public int rows() {
+		return sources.length;
+	}
+
+	public int columns() {
+		return targets.length;
+	}
+
+	public int getSource(int row) {
+		return sources[row];
+	}
+
+	public int getTarget(int column) {
+		return targets[column];
+	}
+
+	/**
+	 * @param row
+	 * @param column
+	 * @return miles from getSource(row) to getTarget(column), -1 if there is no
+	 *         path
+	 */
+	public int getMiles(int row, int column) {
+		return miles[row * targets.length + column];
+	}
+
+	/**
+	 * @return a copy of the miles, row-major
+	 */
+	public int[] toArray() {
+		return miles.clone();
+	}
+
+	@Override
+	public String toString() {
+		StringWriter s = new StringWriter();
+		try {
+			write(s);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e); // not thrown by StringWriter
+		}
+		return s.toString();
+	}
+
+	/**
+	 * Writes a tab separated table: a header line of target city codes, then one
+	 * line per source starting with its code.
+	 *
+	 * @param out
+	 * @throws IOException
+	 */
+	public void write(Writer out) throws IOException {
+		for (int target : targets) {
+			out.write('\t');
+			out.write(distGraph.getCityCode(target));
+		}
+		out.write("\r\n");
+		for (int row = 0; row < sources.length; row++) {
+			out.write(distGraph.getCityCode(sources[row]));
+			for (int column = 0; column < targets.length; column++) {
+				out.write('\t');
+				out.write(String.valueOf(getMiles(row, column)));
+			}
+			out.write("\r\n");
+		}
+	}
+}
@@ -7,9 +7,12 @@ import java.util.List;
 
 /**
  * A frontier queue for the AStarSearch class. Each entry is an int array: 
- * City | f() | PrevCity
+ * City | f() | PrevCity | g()
+ * 
+ * Entries are kept sorted with the front of the queue at the end of the list,
+ * so pop() does not shift the list.
  */
-public class Frontier {
+public class Frontier implements FrontierQueue {
 	private List<int[]> frontier;
 	private int processedCity; // The city being processed when frontier is updated.
 
@@ -23,36 +26,54 @@ public class Frontier {
 	 * 
 	 * @param cityIndex
 	 * @param fVal
+	 * @param gVal
 	 * @param processingCity
 	 */
-	public void update(int cityIndex, int fVal, int processingCity) {
-		int[] r = { cityIndex, fVal, processingCity };
+	@Override
+	public void update(int cityIndex, int fVal, int gVal, int processingCity) {
+		int[] r = { cityIndex, fVal, processingCity, gVal };
 
 		// check if city already in frontier, delete if so
+		remove(cityIndex);
+
+		// insert the parameter city entry at its sorted position
+		int i = Collections.binarySearch(frontier, r, new sortByfValue());
+		frontier.add(-(i + 1), r);
+		this.processedCity = processingCity;
+	}
+
+	/**
+	 * Removes a city from the frontier if it is queued.
+	 * 
+	 * @param cityIndex
+	 */
+	public void remove(int cityIndex) {
 		for (int i = 0; i < frontier.size(); i++) {
 			if (frontier.get(i)[0] == cityIndex) {
 				frontier.remove(i);
+				return;
 			}
 		}
-		// add the parameter city entry & sort frontier queue
-		frontier.add(r);
-		Collections.sort(frontier, new sortByfValue());
-		this.processedCity = processingCity;
 	}
 
+	/**
+	 * Returns entry i, counting from the front of the queue.
+	 * 
+	 * @param i
+	 * @return int[] entry
+	 */
 	public int[] getEntry(int i) {
-		return frontier.get(i);
+		return frontier.get(frontier.size() - 1 - i);
 	}
 
 	/**
-	 * Remove & return entry at front of frontier queue
+	 * Remove & return city at front of frontier queue
 	 * 
 	 * @return
 	 */
-	public int[] pop() {
-		int[] n = frontier.get(0);
-		frontier.remove(0);
-		return n;
+	@Override
+	public int pop() {
+		return frontier.remove(frontier.size() - 1)[0];
 	}
 
 	/**
@@ -67,12 +88,33 @@ public class Frontier {
 		return f;
 	}
 
+	@Override
 	public int size() {
 		return frontier.size();
 	}
 
 	public void remove() {
-		frontier.remove(0);
+		frontier.remove(frontier.size() - 1);
+	}
+
+	@Override
+	public boolean contains(int cityIndex) {
+		for (int i = 0; i < frontier.size(); i++) {
+			if (frontier.get(i)[0] == cityIndex) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public void clear() {
+		frontier.clear();
+	}
+
+	@Override
+	public int peekFValue() {
+		return getEntry(0)[1];
 	}
 
 	/**
@@ -80,6 +122,7 @@ public class Frontier {
 	 * 
 	 * @return True for for more cities
 	 */
+	@Override
 	public boolean hasMoreCities() {
 		return !frontier.isEmpty();
 	}
@@ -93,7 +136,7 @@ public class Frontier {
 	}
 
 	public void addFinalDestination(int goalCity) {
-		frontier.add(new int[0]);
+		frontier.add(0, new int[0]);
 		processedCity = goalCity;
 	}
 
@@ -107,7 +150,7 @@ public class Frontier {
 		String s = "";
 		String addString;
 		for (int i = 0; i < frontier.size(); i++) {
-			addString = ("  " + frontier.get(i)[0] + " " + frontier.get(i)[1] + "  " + frontier.get(i)[2] + " |");
+			addString = ("  " + getEntry(i)[0] + " " + getEntry(i)[1] + "  " + getEntry(i)[2] + " |");
 			s = s + addString;
 		}
 		return s;
@@ -121,7 +164,7 @@ public class Frontier {
 	public String functionToStringByLine() {
 		String s = "";
 		for (int i = 0; i < frontier.size(); i++) {
-			s = s.concat("city:   " + frontier.get(i)[0] + "\tf():   " + frontier.get(i)[1] + "\r\n");
+			s = s.concat("city:   " + getEntry(i)[0] + "\tf():   " + getEntry(i)[1] + "\r\n");
 		}
 		return s;
 	}
@@ -136,12 +179,12 @@ public class Frontier {
 		int align;
 		String spaces = "";
 		for (int i = 0; i < frontier.size(); i++) {
-			align = 3 - String.valueOf(frontier.get(i)[1]).length();
+			align = 3 - String.valueOf(getEntry(i)[1]).length();
 			for (int j = 0; j < align; j++) {
 				spaces = spaces.concat(" ");
 			}
-			s = s.concat("city:   " + frontier.get(i)[0] + "\tf():   " + frontier.get(i)[1] + spaces
-					+ "\t\tprevCity:   " + frontier.get(i)[2] + "\r\n");
+			s = s.concat("city:   " + getEntry(i)[0] + "\tf():   " + getEntry(i)[1] + spaces
+					+ "\t\tprevCity:   " + getEntry(i)[2] + "\r\n");
 		}
 		return s;
 	}
@@ -149,17 +192,18 @@ public class Frontier {
 
 /**
  * Used for sorting the frontier. A simple implementation of Comparator to have
- * a compare method for sorting the frontier.
+ * a compare method for sorting the frontier. Entries to be popped first sort
+ * last.
  */
 class sortByfValue implements Comparator<int[]> {
 	@Override
 	public int compare(int[] o1, int[] o2) {
-		if (o1[1] > o2[1]) {
-			return 1;
+		if (o1[0] == o2[0]) {
+			return 0;
 		}
-		if (o1[1] < o2[1]) {
-			return -1;
+		if (FrontierQueue.precedes(o1[1], o1[3], o1[0], o2[1], o2[3], o2[0])) {
+			return 1;
 		}
-		return 0;
+		return -1;
 	}
 }
@@ -0,0 +1,70 @@
+package starsearch;
+
+/**
+ * A priority queue of cities for the AStarSearch class, ordered by f(). Ties
+ * on f() are broken by preferring the larger g() (the city further along its
+ * path), then the lower city index, so every implementation pops cities in the
+ * same order.
+ */
+public interface FrontierQueue {
+
+	/**
+	 * Add a city to the queue, or change its entry if it is already queued.
+	 *
+	 * @param cityIndex
+	 * @param fVal
+	 *            estimated total path cost through the city
+	 * @param gVal
+	 *            miles from the source city to the city
+	 * @param processingCity
+	 *            the city being processed when the entry is made
+	 */
+	public void update(int cityIndex, int fVal, int gVal, int processingCity);
+
+	/**
+	 * Remove & return the city at the front of the queue. Check hasMoreCities()
+	 * before calling.
+	 *
+	 * @return city index
+	 */
+	public int pop();
+
+	/**
+	 * Checks if elements are left in the queue
+	 *
+	 * @return True for for more cities
+	 */
+	public boolean hasMoreCities();
+
+	/**
+	 * Returns the f() of the city at the front of the queue, without removing
+	 * it. Check hasMoreCities() before calling.
+	 *
+	 * @return f() of the next city to pop
+	 */
+	public int peekFValue();
+
+	public boolean contains(int cityIndex);
+
+	public int size();
+
+	/**
+	 * Empties the queue so it can be reused for another search.
+	 */
+	public void clear();
+
+	/**
+	 * Ordering shared by all FrontierQueue implementations.
+	 *
+	 * @return true if the first entry should be popped before the second.
+	 */
+	public static boolean precedes(int f1, int g1, int city1, int f2, int g2, int city2) {
+		if (f1 != f2) {
+			return f1 < f2;
+		}
+		if (g1 != g2) {
+			return g1 > g2;
+		}
+		return city1 < city2;
+	}
+}
@@ -0,0 +1,31 @@
+package starsearch;
+
+/**
+ * Available FrontierQueue implementations for AStarSearch.
+ */
+public enum FrontierType {
+	SORTED_LIST, // original sorted list, O(n) updates
+	DARY_HEAP, // indexed 4-ary heap with decrease-key
+	RADIX_HEAP, // monotone radix heap over int keys
+	BUCKET_QUEUE; // Dial's bucket queue, for small integer costs
+
+	/**
+	 * Creates an empty queue of this type.
+	 *
+	 * @param numCities
+	 *            number of cities in the graph being searched
+	 * @return FrontierQueue
+	 */
+	public FrontierQueue create(int numCities) {
+		switch (this) {
+		case SORTED_LIST:
+			return new Frontier();
+		case RADIX_HEAP:
+			return new RadixHeap(numCities);
+		case BUCKET_QUEUE:
+			return new BucketQueue(numCities);
+		default:
+			return new IndexedDaryHeap(numCities, 4);
+		}
+	}
+}
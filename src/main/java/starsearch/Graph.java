@@ -1,97 +1,117 @@
 package starsearch;
 
 import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.util.ArrayList;
-import java.util.Scanner;
 
 /**
  * A graph with data rows/columns starting at zero. Creates an index of
- * the title data.
+ * the title data. The input file is either the text matrix format or a
+ * compiled BinaryGraphFile, which is mapped instead of parsed.
+ * 
+ * The edges are held in an immutable GraphSnapshot. Edits are applied in
+ * batches by apply(), which publishes a new snapshot atomically; searches
+ * already running keep reading the one they started with, and new ones pick
+ * up the latest, neither of them locking. The matrix is not exposed, since its
+ * rows are shared between snapshots; distances are read through getDistance()
+ * or getSnapshot().
  */
 public class Graph {
-	public int[][] graph;
-	public String valueSeparator = "\\s+"; // Value separator for input files
-	public int noEdgeValue = 999; // Value for unknown path costs
+	public static final int defaultNoEdgeValue = 999;
+	public int noEdgeValue = defaultNoEdgeValue; // Value for unknown path costs
 	public String[][] titleIndex; // Index of names/headers of rows/columns
 	private File inputFile;
 	private int maxNameLength = 20; // to align string output
+	private BinaryGraphFile binaryFile; // set when the input file is compiled
+	private CitySymbolTable symbolTable; // built on first use, cleared on import
+	private volatile GraphSnapshot snapshot; // edges of the current version
+	private long loadNanos; // time the last import took
 
-	Graph(File f) {
+	Graph(File f) throws IOException {
 		inputFile = f;
 		importDataFile();
 	}
 
 	/**
 	 * Assumes 1st row & column are headers, does not include them in output graph
-	 * This will also set the values of titleIndex when it runs.
+	 * This will also set the values of titleIndex when it runs. The file is read
+	 * in a single pass by GraphFileParser, or mapped if it is a compiled
+	 * BinaryGraphFile. If it fails, the Graph keeps the data it had.
 	 * 
-	 * @param inputDirectory
-	 *            file with input data
-	 * @return graph of the file in int[][] format.
+	 * @throws IOException
+	 *             if the file cannot be read, or GraphFormatException with the
+	 *             line & column of a malformed value
 	 */
-	public void importDataFile() {
-		Scanner scanner;
-		int columns = 0, rows = 0;
-		String line = "";
+	public synchronized void importDataFile() throws IOException {
+		SearchEvents.GraphLoad event = new SearchEvents.GraphLoad();
+		event.begin();
+		long start = System.nanoTime();
+		load();
+		loadNanos = System.nanoTime() - start;
+		SearchStatistics.getInstance().recordLoad(loadNanos);
+		event.end();
+		if (event.shouldCommit()) {
+			event.file = inputFile.getPath();
+			event.cities = length();
+			event.compiled = binaryFile != null;
+			event.commit();
+		}
+	}
 
-		try {
-			scanner = new Scanner(inputFile);
-			while (scanner.hasNextLine()) {
-				rows++;
-				scanner.nextLine();
-			}
-			rows--; // this excludes column title row
-			scanner.close();
-			scanner = new Scanner(inputFile);
-			line = scanner.nextLine();
-
-			String[] rRowTokens = line.split(valueSeparator);
-			columns = rRowTokens.length; // this excludes row description column
-
-			// Add column titles to titleIndex
-			titleIndex = new String[rows][2];
-			for (int i = 1; i < rRowTokens.length; i++) {
-				titleIndex[i - 1][1] = rRowTokens[i];
-			}
-			scanner.close();
-
-			// Initialize Graph
-			graph = new int[rows][columns];
-			scanner = new Scanner(inputFile);
-
-			// skip the column titles
-			scanner.nextLine();
-			// start with the first row at index 1.
-			for (int i = 1; scanner.hasNextLine(); i++) {
-				line = scanner.nextLine();
-				rRowTokens = line.split(valueSeparator);
-				// add row titles to title index
-				titleIndex[i - 1][0] = rRowTokens[0];
-				for (int j = 1; j < rRowTokens.length; j++) {
-					String rowToken = rRowTokens[j];
-					if (rowToken.equals("-")) {
-						graph[i - 1][j - 1] = noEdgeValue;
-					} else {
-						graph[i - 1][j - 1] = Integer.parseInt(rowToken);
-					}
-				}
-			}
-			scanner.close();
-		} catch (FileNotFoundException e) {
+	/**
+	 * Reads the file into locals first, so a file that cannot be read or parsed
+	 * leaves the Graph as it was.
+	 */
+	private void load() throws IOException {
+		int version = snapshot == null ? 1 : snapshot.getVersion() + 1;
+		String[][] index = null;
+		BinaryGraphFile compiled = null;
+		GraphSnapshot loaded;
+		if (BinaryGraphFile.isBinaryGraphFile(inputFile.toPath())) {
+			compiled = BinaryGraphFile.open(inputFile.toPath());
+			loaded = new GraphSnapshot(version, compiled);
+		} else {
+			GraphFileParser parser = new GraphFileParser(noEdgeValue);
+			parser.parse(inputFile.toPath());
+			index = parser.getTitleIndex();
+			loaded = new GraphSnapshot(version, parser.getGraph(), noEdgeValue);
 		}
+		symbolTable = null;
+		titleIndex = index;
+		binaryFile = compiled;
+		noEdgeValue = loaded.getNoEdgeValue();
+		snapshot = loaded;
 	}
 
 	@Override
 	public String toString() {
-		String s = "";
-		for (int i = 0; i < graph.length; i++) {
-			for (int j = 0; j < graph.length; j++) {
-				s = s.concat("\t" + graph[i][j]);
+		StringWriter s = new StringWriter();
+		try {
+			writeMatrix(s);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e); // not thrown by StringWriter
+		}
+		return s.toString();
+	}
+
+	/**
+	 * Writes the graph values as toString() returns them, one row at a time.
+	 * 
+	 * @param out
+	 * @throws IOException
+	 */
+	public void writeMatrix(Writer out) throws IOException {
+		GraphSnapshot snapshot = this.snapshot;
+		for (int i = 0; i < snapshot.length(); i++) {
+			for (int j = 0; j < snapshot.length(); j++) {
+				out.write('\t');
+				out.write(String.valueOf(snapshot.getValue(i, j)));
 			}
-			s = s.concat("\r\n");
+			out.write("\r\n");
 		}
-		return s;
 	}
 
 	/**
@@ -101,61 +121,73 @@ public class Graph {
 	 *         font
 	 */
 	public String titleIndexToStringAligned() {
-		String s = "";
-		String addString;
-		String align = "";
-		int length = 0;
+		StringBuilder s = new StringBuilder();
+		String[][] titleIndex = getTitleIndex();
 		for (int i = 0; i < titleIndex.length; i++) {
-			// find how much space to add between tabs (for aligning title)
-			length = titleIndex[i][0].length();
-			length = maxNameLength - length;
-			align = "";
-			for (int m = 0; m < length; m++) {
-				align = align.concat(" ");
+			s.append(i).append('\t').append(titleIndex[i][0]);
+			// pad names to the same length (for aligning title)
+			for (int m = titleIndex[i][0].length(); m < maxNameLength; m++) {
+				s.append(' ');
 			}
-			addString = (i + "\t" + titleIndex[i][0] + align + "\t" + titleIndex[i][1] + "\r\n");
-			s = s + addString;
+			s.append('\t').append(titleIndex[i][1]).append("\r\n");
 		}
-		s.trim();
-		return s;
+		return s.toString();
 	}
 
 	/**
-	 * Returns the title/header index of columns/rows.
+	 * Returns the title/header index of columns/rows. For compiled files the
+	 * index is decoded the first time it is needed.
 	 * 
 	 * @return
 	 */
 	public String[][] getTitleIndex() {
+		if (titleIndex == null && binaryFile != null) {
+			String[][] index = new String[length()][2];
+			for (int i = 0; i < index.length; i++) {
+				index[i][0] = binaryFile.getCityName(i);
+				index[i][1] = binaryFile.getCityCode(i);
+			}
+			titleIndex = index;
+		}
 		return titleIndex;
 	}
 
 	/**
-	 * Searches the city index for the parameter name/city code, and return the
+	 * Looks up the parameter name/city code in the symbol table, and return the
 	 * parameter city's graph index number.
 	 * 
 	 * @param cityName
 	 *            Can be either the full city name or the city code.
-	 * @return the index of the city.
+	 * @return the index of the city, -1 if not found.
 	 */
 	public int getCityIndex(String cityName) {
-		for (int i = 0; i < titleIndex.length; i++) {
-			if (titleIndex[i][0].equals(cityName)) {
-				return i;
-			}
-		}
-		for (int i = 0; i < titleIndex.length; i++) {
-			if (titleIndex[i][1].equals(cityName)) {
-				return i;
-			}
+		return getSymbolTable().indexOf(cityName);
+	}
+
+	/**
+	 * Returns the name/code symbol table, building it the first time it is
+	 * needed.
+	 * 
+	 * @return CitySymbolTable
+	 */
+	public CitySymbolTable getSymbolTable() {
+		if (symbolTable == null) {
+			symbolTable = new CitySymbolTable(this);
 		}
-		return -1;
+		return symbolTable;
 	}
 
 	public String getCityName(int index) {
+		if (titleIndex == null) {
+			return binaryFile.getCityName(index);
+		}
 		return titleIndex[index][0];
 	}
 
 	public String getCityCode(int index) {
+		if (titleIndex == null) {
+			return binaryFile.getCityCode(index);
+		}
 		return titleIndex[index][1];
 	}
 
@@ -167,17 +199,79 @@ public class Graph {
 	 * @return int distance
 	 */
 	public int getDistance(int sourceCity, int goalCity) {
-		if (sourceCity == goalCity) {
-			return 0;
-		}
-		if (sourceCity < goalCity) {
-			return graph[sourceCity][goalCity];
-		}
-		return graph[goalCity][sourceCity];
+		return snapshot.getDistance(sourceCity, goalCity);
+	}
+
+	/**
+	 * Returns the stored value at row & column of the input matrix.
+	 * 
+	 * @param row
+	 * @param column
+	 * @return int value, noEdgeValue if there is no edge
+	 */
+	int getValue(int row, int column) {
+		return snapshot.getValue(row, column);
+	}
+
+	/**
+	 * Sets the distance between two cities, in both directions, as a batch of
+	 * one change. Results computed from older versions, such as cached routes,
+	 * are invalidated.
+	 * 
+	 * @param sourceCity
+	 * @param goalCity
+	 * @param distance
+	 *            noEdgeValue to remove the edge
+	 */
+	public void setDistance(int sourceCity, int goalCity, int distance) {
+		apply(new GraphUpdate().setDistance(sourceCity, goalCity, distance));
+	}
+
+	/**
+	 * Applies a batch of edge changes & publishes them as the next version.
+	 * Searches see either all of the batch or none of it. Updates are applied
+	 * one at a time; readers never wait for them.
+	 * 
+	 * @param update
+	 * @return the published GraphSnapshot
+	 * @throws IllegalArgumentException
+	 *             if a city is not in the graph
+	 */
+	public synchronized GraphSnapshot apply(GraphUpdate update) {
+		GraphSnapshot next = snapshot.apply(update);
+		snapshot = next;
+		return next;
+	}
+
+	/**
+	 * Returns the current version of the edges. It never changes, so a search
+	 * can read it throughout while the Graph is updated.
+	 * 
+	 * @return GraphSnapshot
+	 */
+	public GraphSnapshot getSnapshot() {
+		return snapshot;
+	}
+
+	/**
+	 * @return nanoseconds the last importDataFile() took
+	 */
+	public long getLoadNanos() {
+		return loadNanos;
+	}
+
+	/**
+	 * Returns a number that changes whenever the graph is reloaded or edited, so
+	 * results computed from it can be checked for staleness.
+	 * 
+	 * @return int version
+	 */
+	public int getVersion() {
+		return snapshot.getVersion();
 	}
 
 	public int length() {
-		return graph.length;
+		return snapshot.length();
 	}
 
 	/**
@@ -186,13 +280,23 @@ public class Graph {
 	 * @return ArrayList<String> of city names.
 	 */
 	public ArrayList<String> getCityList() {
-		ArrayList<String> cityList = new ArrayList<String>(graph.length);
-		for (int i = 0; i < graph.length; i++) {
+		ArrayList<String> cityList = new ArrayList<String>(length());
+		for (int i = 0; i < length(); i++) {
 			cityList.add(i, getCityName(i));
 		}
 		return cityList;
 	}
 
+	/**
+	 * Returns the compressed sparse row adjacency of the current snapshot,
+	 * building it the first time it is needed.
+	 * 
+	 * @return CsrGraph
+	 */
+	public CsrGraph getAdjacency() {
+		return snapshot.getAdjacency();
+	}
+
 	/**
 	 * Puts together list of neighbors for parameter city.
 	 * 
@@ -200,17 +304,10 @@ public class Graph {
 	 * @return ArrayList<Integer> of neighbors
 	 */
 	public ArrayList<Integer> getNeighbors(int sourceCity) {
-		ArrayList<Integer> neighbors = new ArrayList<>();
-
-		// get the column & row portions of the graph and parse it into an array
-		for (int i = 0; i < sourceCity; i++)
-			if (graph[i][sourceCity] < noEdgeValue) {
-				neighbors.add(i);
-			}
-		for (int i = sourceCity; i < graph.length; i++) {
-			if (graph[sourceCity][i] < noEdgeValue) {
-				neighbors.add(i);
-			}
+		CsrGraph adjacency = getAdjacency();
+		ArrayList<Integer> neighbors = new ArrayList<>(adjacency.degree(sourceCity));
+		for (int e = adjacency.firstEdge(sourceCity); e < adjacency.endEdge(sourceCity); e++) {
+			neighbors.add(adjacency.getTarget(e));
 		}
 		return neighbors;
 	}
@@ -0,0 +1,222 @@
+package starsearch;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Single pass reader for graph input files. The file is read once through a
+ * FileChannel and tokenized byte by byte: values are accumulated straight into
+ * the int matrix, and only the row & column titles become Strings.
+ *
+ * The 1st line holds the column titles (city codes) after a corner token. Each
+ * following line holds a row title (city name) and its values, where "-" means
+ * there is no edge. Every row has a value for each column title, and no value
+ * is negative.
+ */
+class GraphFileParser {
+	private final int bufferSize = 64 * 1024;
+	private final int noEdgeValue;
+	private String fileName;
+
+	// parse results
+	private int[][] rows;
+	private String[] rowTitles;
+	private String[] columnTitles;
+	private int columnTitleCount;
+	private int rowCount;
+	private int columns; // tokens in the title line, including the corner token
+	private int titleLine;
+
+	// position in the file
+	private int line;
+	private int column;
+	private int tokenColumn; // column where the current token started
+	private int tokenCount; // tokens completed on the current line
+
+	// current token
+	private boolean inToken;
+	private byte[] titleBytes = new byte[32];
+	private int titleLength;
+	private long value;
+	private boolean negative;
+	private int digits;
+
+	GraphFileParser(int noEdgeValue) {
+		this.noEdgeValue = noEdgeValue;
+	}
+
+	/**
+	 * Reads a graph file. Results are available from getGraph() &
+	 * getTitleIndex() afterwards.
+	 *
+	 * @param path
+	 * @throws IOException
+	 *             if the file cannot be read, or GraphFormatException if it is
+	 *             malformed
+	 */
+	public void parse(Path path) throws IOException {
+		fileName = String.valueOf(path.getFileName());
+		rows = new int[64][];
+		rowTitles = new String[64];
+		columnTitles = new String[64];
+		columnTitleCount = 0;
+		rowCount = 0;
+		columns = 0;
+		line = 1;
+		column = 1;
+		tokenCount = 0;
+		inToken = false;
+
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(bufferSize);
+			while (channel.read(buffer) >= 0) {
+				buffer.flip();
+				while (buffer.hasRemaining()) {
+					accept(buffer.get());
+				}
+				buffer.clear();
+			}
+		}
+		endToken();
+		endLine();
+		if (columns == 0) {
+			throw error(line, column, "missing column title line");
+		}
+		if (columnTitleCount > rowCount) {
+			throw error(titleLine, 1, columnTitleCount + " column titles but only " + rowCount + " rows");
+		}
+	}
+
+	/**
+	 * @return matrix of values, one row per line after the title line
+	 */
+	public int[][] getGraph() {
+		return Arrays.copyOf(rows, rowCount);
+	}
+
+	/**
+	 * @return row title (city name) & column title (city code) for each row
+	 */
+	public String[][] getTitleIndex() {
+		String[][] titleIndex = new String[rowCount][2];
+		for (int i = 0; i < rowCount; i++) {
+			titleIndex[i][0] = rowTitles[i];
+			if (i < columnTitleCount) {
+				titleIndex[i][1] = columnTitles[i];
+			}
+		}
+		return titleIndex;
+	}
+
+	private void accept(byte b) throws GraphFormatException {
+		switch (b) {
+		case '\n':
+			endToken();
+			endLine();
+			line++;
+			column = 1;
+			return;
+		case ' ':
+		case '\t':
+		case '\r':
+		case '\f':
+			endToken();
+			break;
+		default:
+			if (!inToken) {
+				startToken();
+			}
+			if (isTitleToken()) {
+				if (titleLength == titleBytes.length) {
+					titleBytes = Arrays.copyOf(titleBytes, titleLength * 2);
+				}
+				titleBytes[titleLength++] = b;
+			} else if (b >= '0' && b <= '9') {
+				value = value * 10 + (b - '0');
+				digits++;
+				if (value > Integer.MAX_VALUE) {
+					throw error(line, tokenColumn, "value out of range");
+				}
+			} else if (b == '-' && column == tokenColumn) {
+				negative = true;
+			} else {
+				throw error(line, column, "unexpected character '" + (char) (b & 0xff) + "' in value");
+			}
+		}
+		column++;
+	}
+
+	/**
+	 * @return true while reading the title line or the title of a row
+	 */
+	private boolean isTitleToken() {
+		return columns == 0 || tokenCount == 0;
+	}
+
+	private void startToken() throws GraphFormatException {
+		if (columns > 0 && tokenCount >= columns) {
+			throw error(line, column, "more than " + (columns - 1) + " values in row");
+		}
+		inToken = true;
+		tokenColumn = column;
+		titleLength = 0;
+		value = 0;
+		negative = false;
+		digits = 0;
+	}
+
+	private void endToken() throws GraphFormatException {
+		if (!inToken) {
+			return;
+		}
+		inToken = false;
+		if (isTitleToken()) {
+			String title = new String(titleBytes, 0, titleLength, StandardCharsets.UTF_8);
+			if (columns == 0) {
+				if (tokenCount > 0) { // skip the corner token
+					if (columnTitleCount == columnTitles.length) {
+						columnTitles = Arrays.copyOf(columnTitles, columnTitleCount * 2);
+					}
+					columnTitles[columnTitleCount++] = title;
+				}
+			} else {
+				if (rowCount == rows.length) {
+					rows = Arrays.copyOf(rows, rowCount * 2);
+					rowTitles = Arrays.copyOf(rowTitles, rowCount * 2);
+				}
+				rows[rowCount] = new int[columns];
+				rowTitles[rowCount] = title;
+			}
+		} else if (digits == 0 && negative) {
+			rows[rowCount][tokenCount - 1] = noEdgeValue;
+		} else if (negative) {
+			throw error(line, tokenColumn, "negative distance -" + value);
+		} else {
+			rows[rowCount][tokenCount - 1] = (int) value;
+		}
+		tokenCount++;
+	}
+
+	private void endLine() throws GraphFormatException {
+		if (tokenCount > 0) {
+			if (columns == 0) {
+				columns = tokenCount;
+				titleLine = line;
+			} else if (tokenCount < columns) {
+				throw error(line, column, "only " + (tokenCount - 1) + " values in row, expected " + (columns - 1));
+			} else {
+				rowCount++;
+			}
+		}
+		tokenCount = 0;
+	}
+
+	private GraphFormatException error(int errorLine, int errorColumn, String message) {
+		return new GraphFormatException(fileName, errorLine, errorColumn, message);
+	}
+}
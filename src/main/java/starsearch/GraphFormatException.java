@@ -0,0 +1,27 @@
+package starsearch;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a graph input file does not match the expected format. Carries
+ * the line & column (both starting at 1) where the problem was found.
+ */
+public class GraphFormatException extends IOException {
+	private static final long serialVersionUID = 1L;
+	private final int line;
+	private final int column;
+
+	GraphFormatException(String fileName, int line, int column, String message) {
+		super(fileName + ":" + line + ":" + column + ": " + message);
+		this.line = line;
+		this.column = column;
+	}
+
+	public int getLine() {
+		return line;
+	}
+
+	public int getColumn() {
+		return column;
+	}
+}
@@ -0,0 +1,409 @@
+package starsearch;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Generates road-network-like graphs for scaling tests. Cities are placed on a
+ * plane about spacing miles apart, and every edge weighs its straight-line
+ * length times a random detour factor, rounded up. The straight-line distance
+ * rounded down is then an admissible & consistent heuristic, written either as
+ * a heuristic matrix or as a coordinates file for a EUCLIDEAN
+ * CoordinateHeuristic. The same topology, size & seed always give the same
+ * graph.
+ *
+ * Text matrix files are O(N^2), so they are only written for graphs of up to
+ * maxMatrixCities cities. Larger graphs use the compiled SPARSE format.
+ */
+public class GraphGenerator {
+	public static final int maxMatrixCities = 5000;
+	public static final double spacing = 10; // miles between neighboring cities
+	public static final double maxDetour = 0.3; // edges are up to 30% longer than straight
+
+	public enum Topology {
+		GRID, // jittered grid with some streets removed & some diagonals added
+		GEOMETRIC // random points, each linked to the points within a fixed radius
+	}
+
+	private final Topology topology;
+	private final int numCities;
+	private final long seed;
+	private final Random random;
+	private final double[] x;
+	private final double[] y;
+	private int[] from = new int[1024]; // edge list, each edge stored once
+	private int[] to = new int[1024];
+	private int[] weight = new int[1024];
+	private int edgeCount;
+	private CsrGraph adjacency;
+
+	/**
+	 * Constructor
+	 *
+	 * @param topology
+	 * @param numCities
+	 * @param seed
+	 */
+	GraphGenerator(Topology topology, int numCities, long seed) {
+		if (numCities < 2) {
+			throw new IllegalArgumentException("numCities must be at least 2: " + numCities);
+		}
+		this.topology = topology;
+		this.numCities = numCities;
+		this.seed = seed;
+		random = new Random(seed);
+		x = new double[numCities];
+		y = new double[numCities];
+		if (topology == Topology.GRID) {
+			generateGrid();
+		} else {
+			generateGeometric();
+		}
+		adjacency = new CsrGraph(numCities, Arrays.copyOf(from, edgeCount), Arrays.copyOf(to, edgeCount),
+				Arrays.copyOf(weight, edgeCount));
+		from = to = weight = null;
+	}
+
+	/**
+	 * Cities on a side x side grid, row by row, each moved up to a quarter of the
+	 * spacing in x & y. Every row is a street, and column 0 joins all rows, so
+	 * the graph is connected. 30% of the other vertical streets are removed and
+	 * 10% of the cells get a diagonal.
+	 */
+	private void generateGrid() {
+		int side = (int) Math.ceil(Math.sqrt(numCities));
+		for (int city = 0; city < numCities; city++) {
+			x[city] = (city % side + (random.nextDouble() - 0.5) / 2) * spacing;
+			y[city] = (city / side + (random.nextDouble() - 0.5) / 2) * spacing;
+		}
+		for (int city = 0; city < numCities; city++) {
+			int column = city % side;
+			if (column + 1 < side && city + 1 < numCities) {
+				addEdge(city, city + 1);
+			}
+			if (city + side < numCities && (column == 0 || random.nextDouble() < 0.7)) {
+				addEdge(city, city + side);
+			}
+			if (column + 1 < side && city + side + 1 < numCities && random.nextDouble() < 0.1) {
+				addEdge(city, city + side + 1);
+			}
+		}
+	}
+
+	/**
+	 * Cities spread uniformly over a square with the same density as the grid,
+	 * each linked to every city within a radius giving about 6 neighbors. Small
+	 * components are then linked to their nearest city in the largest component,
+	 * so the graph is connected.
+	 */
+	private void generateGeometric() {
+		double size = Math.sqrt(numCities) * spacing;
+		double radius = Math.sqrt(6 / Math.PI) * spacing;
+		for (int city = 0; city < numCities; city++) {
+			x[city] = random.nextDouble() * size;
+			y[city] = random.nextDouble() * size;
+		}
+
+		// bucket cities into radius sized cells, so only 9 cells are searched
+		int cells = Math.max(1, (int) (size / radius));
+		int[] cellStart = new int[cells * cells + 1];
+		int[] cellCities = new int[numCities];
+		for (int city = 0; city < numCities; city++) {
+			cellStart[cellOf(city, cells, size) + 1]++;
+		}
+		for (int c = 0; c < cells * cells; c++) {
+			cellStart[c + 1] += cellStart[c];
+		}
+		int[] fill = Arrays.copyOf(cellStart, cells * cells);
+		for (int city = 0; city < numCities; city++) {
+			cellCities[fill[cellOf(city, cells, size)]++] = city;
+		}
+
+		int[] component = new int[numCities]; // union-find parent
+		for (int city = 0; city < numCities; city++) {
+			component[city] = city;
+		}
+		for (int city = 0; city < numCities; city++) {
+			int cx = cellCoordinate(x[city], cells, size);
+			int cy = cellCoordinate(y[city], cells, size);
+			for (int gy = Math.max(0, cy - 1); gy <= Math.min(cells - 1, cy + 1); gy++) {
+				for (int gx = Math.max(0, cx - 1); gx <= Math.min(cells - 1, cx + 1); gx++) {
+					int cell = gy * cells + gx;
+					for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+						int other = cellCities[i];
+						if (other > city && distance(city, other) <= radius) {
+							addEdge(city, other);
+							component[find(component, city)] = find(component, other);
+						}
+					}
+				}
+			}
+		}
+
+		// link every other component to the largest one
+		int[] componentSize = new int[numCities];
+		int largest = 0;
+		for (int city = 0; city < numCities; city++) {
+			int root = find(component, city);
+			if (++componentSize[root] > componentSize[largest]) {
+				largest = root;
+			}
+		}
+		boolean[] linked = new boolean[numCities];
+		for (int city = 0; city < numCities; city++) {
+			int root = find(component, city);
+			if (root != largest && !linked[root]) {
+				linked[root] = true;
+				addEdge(city, nearestInComponent(city, largest, component, cellStart, cellCities, cells, size));
+			}
+		}
+	}
+
+	/**
+	 * Searches rings of cells around a city until the nearest city of a
+	 * component is found.
+	 */
+	private int nearestInComponent(int city, int root, int[] component, int[] cellStart, int[] cellCities,
+			int cells, double size) {
+		int cx = cellCoordinate(x[city], cells, size);
+		int cy = cellCoordinate(y[city], cells, size);
+		double cellSize = size / cells;
+		int nearest = -1;
+		double nearestDistance = Double.MAX_VALUE;
+		for (int ring = 0; ring < cells; ring++) {
+			// cities in this ring are at least (ring - 1) cells away
+			if (nearest >= 0 && (ring - 1) * cellSize > nearestDistance) {
+				break;
+			}
+			for (int gy = Math.max(0, cy - ring); gy <= Math.min(cells - 1, cy + ring); gy++) {
+				for (int gx = Math.max(0, cx - ring); gx <= Math.min(cells - 1, cx + ring); gx++) {
+					if (Math.max(Math.abs(gx - cx), Math.abs(gy - cy)) != ring) {
+						continue;
+					}
+					int cell = gy * cells + gx;
+					for (int i = cellStart[cell]; i < cellStart[cell + 1]; i++) {
+						int other = cellCities[i];
+						if (find(component, other) == root && distance(city, other) < nearestDistance) {
+							nearest = other;
+							nearestDistance = distance(city, other);
+						}
+					}
+				}
+			}
+		}
+		return nearest;
+	}
+
+	private static int find(int[] component, int city) {
+		while (component[city] != city) {
+			component[city] = component[component[city]];
+			city = component[city];
+		}
+		return city;
+	}
+
+	private int cellOf(int city, int cells, double size) {
+		return cellCoordinate(y[city], cells, size) * cells + cellCoordinate(x[city], cells, size);
+	}
+
+	private static int cellCoordinate(double coordinate, int cells, double size) {
+		return Math.min(cells - 1, (int) (coordinate / size * cells));
+	}
+
+	private double distance(int city, int other) {
+		double dx = x[city] - x[other];
+		double dy = y[city] - y[other];
+		return Math.sqrt(dx * dx + dy * dy);
+	}
+
+	private void addEdge(int city, int other) {
+		if (edgeCount == from.length) {
+			from = Arrays.copyOf(from, edgeCount * 2);
+			to = Arrays.copyOf(to, edgeCount * 2);
+			weight = Arrays.copyOf(weight, edgeCount * 2);
+		}
+		from[edgeCount] = city;
+		to[edgeCount] = other;
+		weight[edgeCount++] = (int) Math.ceil(distance(city, other) * (1 + maxDetour * random.nextDouble()));
+	}
+
+	public CsrGraph getAdjacency() {
+		return adjacency;
+	}
+
+	public int length() {
+		return numCities;
+	}
+
+	public String getCityName(int city) {
+		return "City" + city;
+	}
+
+	public String getCityCode(int city) {
+		return "C" + city;
+	}
+
+	/**
+	 * @return straight-line miles between two cities, rounded down
+	 */
+	public int getHeuristic(int city, int goalCity) {
+		return (int) distance(city, goalCity);
+	}
+
+	/**
+	 * @return file name prefix describing the graph, e.g. grid-1000-s1
+	 */
+	public String getName() {
+		return topology.name().toLowerCase(Locale.ROOT) + "-" + numCities + "-s" + seed;
+	}
+
+	/**
+	 * Writes the distance matrix in the text format read by Graph.
+	 *
+	 * @param path
+	 * @throws IOException
+	 */
+	public void writeDistanceMatrix(Path path) throws IOException {
+		checkMatrixSize();
+		int[] row = new int[numCities];
+		try (Writer out = newWriter(path)) {
+			writeMatrixTitles(out);
+			for (int city = 0; city < numCities; city++) {
+				Arrays.fill(row, -1);
+				for (int edge = adjacency.firstEdge(city); edge < adjacency.endEdge(city); edge++) {
+					row[adjacency.getTarget(edge)] = adjacency.getWeight(edge);
+				}
+				out.write(getCityName(city));
+				for (int other = 0; other < numCities; other++) {
+					out.write(' ');
+					out.write(row[other] < 0 ? "-" : String.valueOf(row[other]));
+				}
+				out.write("\r\n");
+			}
+		}
+	}
+
+	/**
+	 * Writes the straight-line heuristic as a matrix in the text format read by
+	 * Graph, for use with a MatrixHeuristic.
+	 *
+	 * @param path
+	 * @throws IOException
+	 */
+	public void writeHeuristicMatrix(Path path) throws IOException {
+		checkMatrixSize();
+		try (Writer out = newWriter(path)) {
+			writeMatrixTitles(out);
+			for (int city = 0; city < numCities; city++) {
+				out.write(getCityName(city));
+				for (int other = 0; other < numCities; other++) {
+					out.write(' ');
+					out.write(String.valueOf(getHeuristic(city, other)));
+				}
+				out.write("\r\n");
+			}
+		}
+	}
+
+	/**
+	 * Writes the distances in the compiled SPARSE format.
+	 *
+	 * @param path
+	 * @throws IOException
+	 */
+	public void writeBinary(Path path) throws IOException {
+		BinaryGraphFile.write(adjacency, this::getCityName, this::getCityCode, Graph.defaultNoEdgeValue, path);
+	}
+
+	/**
+	 * Writes city positions in the format read by CoordinateHeuristic, for the
+	 * EUCLIDEAN metric.
+	 *
+	 * @param path
+	 * @throws IOException
+	 */
+	public void writeCoordinates(Path path) throws IOException {
+		try (Writer out = newWriter(path)) {
+			out.write("TOWN Code X Y\r\n");
+			for (int city = 0; city < numCities; city++) {
+				out.write(getCityName(city) + " " + getCityCode(city) + " "
+						+ String.format(Locale.ROOT, "%.3f %.3f", x[city], y[city]) + "\r\n");
+			}
+		}
+	}
+
+	private void writeMatrixTitles(Writer out) throws IOException {
+		out.write("TOWN");
+		for (int city = 0; city < numCities; city++) {
+			out.write(' ');
+			out.write(getCityCode(city));
+		}
+		out.write("\r\n");
+	}
+
+	private void checkMatrixSize() {
+		if (numCities > maxMatrixCities) {
+			throw new IllegalStateException(
+					numCities + " cities is too many for a text matrix, the limit is " + maxMatrixCities);
+		}
+	}
+
+	private static Writer newWriter(Path path) throws IOException {
+		return new BufferedWriter(Files.newBufferedWriter(path, StandardCharsets.UTF_8), 1 << 16);
+	}
+
+	/**
+	 * Usage: GraphGenerator &lt;grid|geometric&gt; &lt;cities&gt; &lt;seed&gt;
+	 * &lt;output directory&gt;
+	 *
+	 * Writes NAME-distances.bin & NAME-coordinates.txt, plus
+	 * NAME-distances.txt & NAME-heuristic.txt when the graph is small enough for
+	 * text matrices. NAME is getName().
+	 *
+	 * @param args
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length != 4) {
+			System.err.println("Usage: GraphGenerator <grid|geometric> <cities> <seed> <output directory>");
+			System.exit(2);
+		}
+		GraphGenerator generator = new GraphGenerator(Topology.valueOf(args[0].toUpperCase(Locale.ROOT)),
+				Integer.parseInt(args[1]), Long.parseLong(args[2]));
+		Path directory = Path.of(args[3]);
+		Files.createDirectories(directory);
+		for (Path file : generator.writeFiles(directory)) {
+			System.out.println(file + ": " + Files.size(file) + " bytes");
+		}
+	}
+
+	/**
+	 * Writes every format that fits the graph size into a directory.
+	 *
+	 * @param directory
+	 * @return files written
+	 * @throws IOException
+	 */
+	public Path[] writeFiles(Path directory) throws IOException {
+		boolean matrix = numCities <= maxMatrixCities;
+		Path[] files = new Path[matrix ? 4 : 2];
+		files[0] = directory.resolve(getName() + "-distances.bin");
+		writeBinary(files[0]);
+		files[1] = directory.resolve(getName() + "-coordinates.txt");
+		writeCoordinates(files[1]);
+		if (matrix) {
+			files[2] = directory.resolve(getName() + "-distances.txt");
+			writeDistanceMatrix(files[2]);
+			files[3] = directory.resolve(getName() + "-heuristic.txt");
+			writeHeuristicMatrix(files[3]);
+		}
+		return files;
+	}
+}
@@ -0,0 +1,224 @@
+package starsearch;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * One immutable version of the edges of a Graph. A search reads the snapshot
+ * current when it starts until it ends, without locking, while Graph.apply()
+ * publishes newer ones. Applying a GraphUpdate copies only the matrix rows of
+ * the cities it changes; all other rows are shared with the older snapshot.
+ * The adjacency of the new snapshot is derived from the old one in a single
+ * pass over its edges, instead of scanning the whole matrix again.
+ *
+ * Compiled graph files are mapped read-only, so once edited their values come
+ * from a heap copy of the adjacency instead of the file.
+ */
+public final class GraphSnapshot {
+	private final int version;
+	private final int numCities;
+	private final int noEdgeValue;
+	private final int[][] matrix; // null for compiled files, rows shared between snapshots
+	private final BinaryGraphFile binaryFile; // values of a compiled file not edited yet
+	private volatile CsrGraph adjacency; // built on first use for matrix graphs
+
+	/**
+	 * Snapshot of a text matrix.
+	 */
+	GraphSnapshot(int version, int[][] matrix, int noEdgeValue) {
+		this(version, matrix.length, noEdgeValue, matrix, null, null);
+	}
+
+	/**
+	 * Snapshot of a compiled graph file.
+	 */
+	GraphSnapshot(int version, BinaryGraphFile binaryFile) {
+		this(version, binaryFile.length(), binaryFile.getNoEdgeValue(), null, binaryFile, binaryFile.getAdjacency());
+	}
+
+	private GraphSnapshot(int version, int numCities, int noEdgeValue, int[][] matrix, BinaryGraphFile binaryFile,
+			CsrGraph adjacency) {
+		this.version = version;
+		this.numCities = numCities;
+		this.noEdgeValue = noEdgeValue;
+		this.matrix = matrix;
+		this.binaryFile = binaryFile;
+		this.adjacency = adjacency;
+	}
+
+	/**
+	 * @return the Graph version this snapshot is
+	 */
+	public int getVersion() {
+		return version;
+	}
+
+	public int length() {
+		return numCities;
+	}
+
+	public int getNoEdgeValue() {
+		return noEdgeValue;
+	}
+
+	/**
+	 * Returns the distance between two cities.
+	 *
+	 * @param sourceCity
+	 * @param goalCity
+	 * @return int distance, noEdgeValue if there is no edge
+	 */
+	public int getDistance(int sourceCity, int goalCity) {
+		if (sourceCity == goalCity) {
+			return 0;
+		}
+		if (sourceCity < goalCity) {
+			return getValue(sourceCity, goalCity);
+		}
+		return getValue(goalCity, sourceCity);
+	}
+
+	/**
+	 * Returns the stored value at row & column of the matrix.
+	 *
+	 * @return int value, noEdgeValue if there is no edge
+	 */
+	int getValue(int row, int column) {
+		if (matrix != null) {
+			return matrix[row][column];
+		}
+		if (binaryFile != null) {
+			return binaryFile.getValue(row, column);
+		}
+		return row == column ? 0 : getAdjacency().getWeight(row, column, noEdgeValue);
+	}
+
+	/**
+	 * Returns the compressed sparse row adjacency, building it the first time it
+	 * is needed. Threads racing to build it build equal copies.
+	 *
+	 * @return CsrGraph
+	 */
+	public CsrGraph getAdjacency() {
+		CsrGraph csr = adjacency;
+		if (csr == null) {
+			csr = new CsrGraph(this);
+			adjacency = csr;
+		}
+		return csr;
+	}
+
+	/**
+	 * Creates the next version with a batch of changes applied. This snapshot is
+	 * not changed.
+	 *
+	 * @param update
+	 * @return GraphSnapshot of version + 1
+	 * @throws IllegalArgumentException
+	 *             if a city is not in the graph
+	 */
+	GraphSnapshot apply(GraphUpdate update) {
+		// both directions of every change, sorted by city then neighbor
+		long[] keys = new long[2 * update.size()];
+		int i = 0;
+		for (Map.Entry<Long, Integer> change : update.getChanges().entrySet()) {
+			int low = (int) (change.getKey() >>> 32);
+			int high = (int) (long) change.getKey();
+			if (high >= numCities) {
+				throw new IllegalArgumentException("No such city: " + high);
+			}
+			keys[i++] = change.getKey();
+			keys[i++] = ((long) high << 32) | low;
+		}
+		Arrays.sort(keys);
+		int[] miles = new int[keys.length];
+		for (i = 0; i < keys.length; i++) {
+			int city = (int) (keys[i] >>> 32);
+			int other = (int) keys[i];
+			int value = update.getChanges().get(((long) Math.min(city, other) << 32) | Math.max(city, other));
+			miles[i] = value < noEdgeValue ? value : noEdgeValue;
+		}
+
+		int[][] rows = null;
+		if (matrix != null) {
+			rows = matrix.clone();
+			for (i = 0; i < keys.length; i++) {
+				int city = (int) (keys[i] >>> 32);
+				if (rows[city] == matrix[city]) {
+					rows[city] = matrix[city].clone();
+				}
+				rows[city][(int) keys[i]] = miles[i];
+			}
+		}
+		CsrGraph csr = adjacency;
+		if (csr == null && matrix == null) {
+			csr = getAdjacency();
+		}
+		CsrGraph nextAdjacency = csr == null || keys.length == 0 ? csr : applyToAdjacency(csr, keys, miles);
+		return new GraphSnapshot(version + 1, numCities, noEdgeValue, rows, keys.length == 0 ? binaryFile : null,
+				nextAdjacency);
+	}
+
+	/**
+	 * Copies an adjacency with changed edges. Edges that remain keep their
+	 * position among a city's neighbors, & new ones follow them.
+	 *
+	 * @param keys
+	 *            sorted city << 32 | neighbor of each changed edge
+	 * @param miles
+	 *            new weight of each, noEdgeValue to remove it
+	 */
+	private CsrGraph applyToAdjacency(CsrGraph csr, long[] keys, int[] miles) {
+		int[] offsets = new int[numCities + 1];
+		boolean[] existed = new boolean[keys.length];
+		int k = 0;
+		for (int city = 0; city < numCities; city++) {
+			int first = k;
+			while (k < keys.length && (int) (keys[k] >>> 32) == city) {
+				k++;
+			}
+			int count = csr.degree(city);
+			for (int edge = csr.firstEdge(city); first < k && edge < csr.endEdge(city); edge++) {
+				int j = Arrays.binarySearch(keys, first, k, ((long) city << 32) | csr.getTarget(edge));
+				if (j >= 0) {
+					existed[j] = true;
+					count -= miles[j] < noEdgeValue ? 0 : 1;
+				}
+			}
+			for (int j = first; j < k; j++) {
+				count += !existed[j] && miles[j] < noEdgeValue ? 1 : 0;
+			}
+			offsets[city + 1] = offsets[city] + count;
+		}
+		int[] targets = new int[offsets[numCities]];
+		int[] weights = new int[offsets[numCities]];
+		k = 0;
+		for (int city = 0; city < numCities; city++) {
+			int first = k;
+			while (k < keys.length && (int) (keys[k] >>> 32) == city) {
+				k++;
+			}
+			int e = offsets[city];
+			for (int edge = csr.firstEdge(city); edge < csr.endEdge(city); edge++) {
+				int target = csr.getTarget(edge);
+				int weight = csr.getWeight(edge);
+				int j = first < k ? Arrays.binarySearch(keys, first, k, ((long) city << 32) | target) : -1;
+				if (j >= 0) {
+					weight = miles[j];
+				}
+				if (weight < noEdgeValue || j < 0) {
+					targets[e] = target;
+					weights[e++] = weight;
+				}
+			}
+			for (int j = first; j < k; j++) {
+				if (!existed[j] && miles[j] < noEdgeValue) {
+					targets[e] = (int) keys[j];
+					weights[e++] = miles[j];
+				}
+			}
+		}
+		return new CsrGraph(IntBuffer.wrap(offsets), IntBuffer.wrap(targets), IntBuffer.wrap(weights));
+	}
+}
@@ -0,0 +1,85 @@
+package starsearch;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A batch of edge changes: new costs, closures & reopened roads. Graph.apply()
+ * publishes the whole batch as one new GraphSnapshot, so no search ever sees
+ * part of it. The graph is undirected, so a pair & its reverse are the same
+ * edge, and a later change to an edge replaces an earlier one in the batch.
+ */
+public class GraphUpdate {
+	static final int closed = Integer.MAX_VALUE; // applied as the Graph's noEdgeValue
+
+	private final LinkedHashMap<Long, Integer> changes = new LinkedHashMap<>(); // lower city << 32 | higher
+
+	GraphUpdate() {
+	}
+
+	/**
+	 * Sets the distance between two cities, adding the edge if there is none.
+	 * A city's distance to itself is always 0, so such changes are ignored.
+	 *
+	 * @param city
+	 * @param other
+	 * @param miles
+	 *            at least 0, the Graph's noEdgeValue or more closes the road
+	 * @return this
+	 */
+	public GraphUpdate setDistance(int city, int other, int miles) {
+		if (city < 0 || other < 0) {
+			throw new IllegalArgumentException("No such city: " + Math.min(city, other));
+		}
+		if (miles < 0) {
+			throw new IllegalArgumentException("Distance cannot be negative: " + miles);
+		}
+		if (city != other) {
+			changes.put(key(city, other), miles);
+		}
+		return this;
+	}
+
+	/**
+	 * Removes the edge between two cities.
+	 *
+	 * @param city
+	 * @param other
+	 * @return this
+	 */
+	public GraphUpdate close(int city, int other) {
+		return setDistance(city, other, closed);
+	}
+
+	/**
+	 * @return number of edges changed
+	 */
+	public int size() {
+		return changes.size();
+	}
+
+	public boolean isEmpty() {
+		return changes.isEmpty();
+	}
+
+	/**
+	 * @return new miles by edge key, lower numbered city in the high 32 bits
+	 */
+	Map<Long, Integer> getChanges() {
+		return changes;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder s = new StringBuilder("GraphUpdate");
+		for (Map.Entry<Long, Integer> change : changes.entrySet()) {
+			s.append(' ').append(change.getKey() >>> 32).append('-').append(change.getKey() & 0xFFFFFFFFL).append('=');
+			s.append(change.getValue() == closed ? "closed" : String.valueOf(change.getValue()));
+		}
+		return s.toString();
+	}
+
+	private static long key(int city, int other) {
+		return ((long) Math.min(city, other) << 32) | Math.max(city, other);
+	}
+}
@@ -0,0 +1,42 @@
+package starsearch;
+
+/**
+ * Estimated cost from a city to the goal city, used for f() by AStarSearch. An
+ * estimate must never be more than the actual shortest distance for the search
+ * to find the optimal path.
+ */
+public interface Heuristic {
+
+	/**
+	 * Returns the estimated cost between parameter cities
+	 * 
+	 * @param city
+	 * @param goalCity
+	 * @return int estimate
+	 */
+	public int estimate(int city, int goalCity);
+
+	/**
+	 * Returns a heuristic valid for the edges of a snapshot. Heuristics
+	 * precomputed from the graph may overestimate once it is edited; they
+	 * return a replacement built for the snapshot instead of themselves.
+	 * 
+	 * @param snapshot
+	 * @return this, or a Heuristic built for snapshot
+	 */
+	public default Heuristic forSnapshot(GraphSnapshot snapshot) {
+		return this;
+	}
+
+	/**
+	 * Returns true if the estimates of forSnapshot() are known to be consistent:
+	 * h(a) <= w(a, b) + h(b) for every edge, so also never more than the
+	 * shortest distance. Routes are only reported as proven shortest, or within
+	 * an anytime bound, for a consistent heuristic.
+	 * 
+	 * @return false unless checked or guaranteed by construction
+	 */
+	public default boolean isConsistent() {
+		return false;
+	}
+}
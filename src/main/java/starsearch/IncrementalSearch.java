@@ -0,0 +1,417 @@
+package starsearch;
+
+import java.util.Arrays;
+
+/**
+ * Lifelong Planning A* between one source & goal city. The g() & rhs()
+ * values of every city are kept between searches, so after edges change only
+ * the cities whose shortest distance the changes affect are processed again,
+ * instead of the whole search. g() is the distance the last expansion of a
+ * city settled on, rhs() the best distance offered by its neighbors' g(); a
+ * city is queued while the two differ, keyed by [min(g, rhs) + h, min(g,
+ * rhs)].
+ *
+ * Edges are changed with setDistance(), which also edits the Graph, or by
+ * applying a GraphUpdate to the Graph & calling distanceChanged() for each
+ * edge it changed. The search keeps its own copy
+ * of the adjacency, so a change costs O(degree). A different source or goal
+ * city, or a Graph changed some other way (such as a reload), starts over from
+ * scratch. The heuristic must stay consistent for the changed weights, or
+ * routes may not be the shortest: a precomputed MatrixHeuristic or
+ * LandmarkHeuristic can overestimate once a road gets shorter.
+ */
+public class IncrementalSearch {
+	private static final int unreachable = Integer.MAX_VALUE;
+
+	private final Graph distGraph;
+	private final Heuristic heuristic;
+	private int numCities;
+
+	// own copy of the adjacency, edited in place
+	private int[][] neighbors;
+	private int[][] weights;
+	private int[] degree;
+	private int version; // Graph version the copy matches
+
+	private int[] g;
+	private int[] rhs;
+	private int[] key1; // key each queued city was queued with
+	private int[] key2;
+	private FrontierQueue cityQueue;
+	private int sourceCity = -1;
+	private int goalCity = -1;
+	private boolean planned; // g & rhs hold a finished search for source & goal
+
+	private int[] touchStamp; // generation a city's g or rhs last changed in
+	private int generation = 1;
+	private int touched; // cities changed since the last search
+	private int expandedCount;
+	private int touchedCount;
+	private int fullExpandedCount;
+	private int fullTouchedCount;
+	private boolean incremental;
+
+	/**
+	 * Constructor
+	 *
+	 * @param distGraph
+	 * @param heuristic
+	 *            consistent estimate to the goal city
+	 */
+	IncrementalSearch(Graph distGraph, Heuristic heuristic) {
+		this.distGraph = distGraph;
+		this.heuristic = heuristic;
+		version = distGraph.getVersion() - 1; // copied on the first search
+	}
+
+	/**
+	 * Finds the shortest route, repairing the previous search if it was between
+	 * the same cities on the same graph.
+	 *
+	 * @param sourceCity
+	 * @param goalCity
+	 * @return Route, not found if the goal city is not connected
+	 */
+	public Route search(int sourceCity, int goalCity) {
+		incremental = planned && sourceCity == this.sourceCity && goalCity == this.goalCity
+				&& version == distGraph.getVersion();
+		if (!incremental) {
+			initialize(sourceCity, goalCity);
+		}
+		expandedCount = 0;
+		computeShortestPath();
+		planned = true;
+		touchedCount = touched;
+		if (!incremental) {
+			fullExpandedCount = expandedCount;
+			fullTouchedCount = touchedCount;
+		}
+		touched = 0;
+		if (++generation == Integer.MAX_VALUE) {
+			Arrays.fill(touchStamp, 0);
+			generation = 1;
+		}
+		return getRoute();
+	}
+
+	/**
+	 * Sets the distance between two cities in the Graph & in this search, so the
+	 * next search repairs its route around the change.
+	 *
+	 * @param city
+	 * @param other
+	 * @param miles
+	 *            the Graph's noEdgeValue to close the road
+	 */
+	public void setDistance(int city, int other, int miles) {
+		GraphSnapshot snapshot = distGraph.apply(new GraphUpdate().setDistance(city, other, miles));
+		if (neighbors != null && snapshot.getVersion() == version + 1) {
+			version = snapshot.getVersion();
+			changeEdge(city, other, snapshot.getDistance(city, other));
+		}
+	}
+
+	/**
+	 * Reads the distance between two cities again after the Graph was updated.
+	 * Every changed pair must be reported before the next search.
+	 *
+	 * @param city
+	 * @param other
+	 */
+	public void distanceChanged(int city, int other) {
+		if (neighbors != null) {
+			GraphSnapshot snapshot = distGraph.getSnapshot();
+			version = snapshot.getVersion();
+			changeEdge(city, other, snapshot.getDistance(city, other));
+		}
+	}
+
+	/**
+	 * Forgets the previous search, so the next one starts from scratch.
+	 */
+	public void reset() {
+		planned = false;
+	}
+
+	/**
+	 * @return the route of the last search
+	 */
+	public Route getRoute() {
+		if (goalCity < 0 || g[goalCity] == unreachable) {
+			return new Route(sourceCity, goalCity, new int[0], -1);
+		}
+		// walk back from the goal through the neighbor each city's g() came from
+		int[] path = new int[16];
+		int length = 0;
+		int city = goalCity;
+		path[length++] = city;
+		while (city != sourceCity && length <= numCities) {
+			int best = -1;
+			int bestMiles = unreachable;
+			for (int i = 0; i < degree[city]; i++) {
+				int miles = add(g[neighbors[city][i]], weights[city][i]);
+				if (miles < bestMiles) {
+					best = neighbors[city][i];
+					bestMiles = miles;
+				}
+			}
+			if (best < 0) {
+				break; // not settled along the way, cannot happen with a consistent heuristic
+			}
+			city = best;
+			if (length == path.length) {
+				path = Arrays.copyOf(path, length * 2);
+			}
+			path[length++] = city;
+		}
+		for (int i = 0; i < length / 2; i++) {
+			int swap = path[i];
+			path[i] = path[length - 1 - i];
+			path[length - 1 - i] = swap;
+		}
+		return new Route(sourceCity, goalCity, Arrays.copyOf(path, length), g[goalCity]);
+	}
+
+	/**
+	 * @return cities expanded by the last search
+	 */
+	public int getExpandedCount() {
+		return expandedCount;
+	}
+
+	/**
+	 * @return cities whose g() or rhs() changed for the last search, including
+	 *         changes made by setDistance() before it
+	 */
+	public int getTouchedCount() {
+		return touchedCount;
+	}
+
+	/**
+	 * @return cities expanded by the last search that started from scratch, what
+	 *         a full replan costs
+	 */
+	public int getFullExpandedCount() {
+		return fullExpandedCount;
+	}
+
+	/**
+	 * @return cities touched by the last search that started from scratch
+	 */
+	public int getFullTouchedCount() {
+		return fullTouchedCount;
+	}
+
+	/**
+	 * @return true if the last search repaired the one before it
+	 */
+	public boolean isIncremental() {
+		return incremental;
+	}
+
+	@Override
+	public String toString() {
+		return (incremental ? "repaired " : "planned ") + sourceCity + "->" + goalCity + ": expanded "
+				+ expandedCount + ", touched " + touchedCount + " (full search expanded " + fullExpandedCount
+				+ ", touched " + fullTouchedCount + ")";
+	}
+
+	/**
+	 * Starts over for a source & goal city, copying the adjacency first if the
+	 * Graph has changed.
+	 */
+	private void initialize(int sourceCity, int goalCity) {
+		if (neighbors == null || version != distGraph.getVersion()) {
+			copyAdjacency();
+		}
+		this.sourceCity = sourceCity;
+		this.goalCity = goalCity;
+		Arrays.fill(g, unreachable);
+		Arrays.fill(rhs, unreachable);
+		cityQueue.clear();
+		touched = 0;
+		rhs[sourceCity] = 0;
+		touch(sourceCity);
+		enqueue(sourceCity);
+	}
+
+	private void copyAdjacency() {
+		GraphSnapshot snapshot = distGraph.getSnapshot();
+		CsrGraph graph = snapshot.getAdjacency();
+		version = snapshot.getVersion();
+		int n = graph.length();
+		if (n != numCities || g == null) {
+			numCities = n;
+			g = new int[n];
+			rhs = new int[n];
+			key1 = new int[n];
+			key2 = new int[n];
+			touchStamp = new int[n];
+			cityQueue = FrontierType.DARY_HEAP.create(n);
+		}
+		neighbors = new int[n][];
+		weights = new int[n][];
+		degree = new int[n];
+		for (int city = 0; city < n; city++) {
+			int d = graph.degree(city);
+			neighbors[city] = new int[Math.max(d, 2)];
+			weights[city] = new int[Math.max(d, 2)];
+			for (int edge = graph.firstEdge(city); edge < graph.endEdge(city); edge++) {
+				neighbors[city][degree[city]] = graph.getTarget(edge);
+				weights[city][degree[city]++] = graph.getWeight(edge);
+			}
+		}
+	}
+
+	/**
+	 * Expands queued cities until the goal is consistent & no queued key is
+	 * below its key. Entries of cities that became consistent while queued are
+	 * left in the queue & skipped when popped.
+	 */
+	private void computeShortestPath() {
+		while (cityQueue.hasMoreCities()) {
+			int city = cityQueue.pop();
+			if (g[city] == rhs[city]) {
+				continue;
+			}
+			int goalMin = Math.min(g[goalCity], rhs[goalCity]);
+			int goalKey = add(goalMin, heuristic.estimate(goalCity, goalCity));
+			boolean beforeGoal = key1[city] != goalKey ? key1[city] < goalKey : key2[city] < goalMin;
+			if (!beforeGoal && g[goalCity] == rhs[goalCity]) {
+				cityQueue.update(city, key1[city], -key2[city], city);
+				break;
+			}
+			expandedCount++;
+			int oldMiles = g[city];
+			touch(city);
+			if (g[city] > rhs[city]) {
+				// overconsistent: settle the shorter distance & offer it to the neighbors
+				g[city] = rhs[city];
+				for (int i = 0; i < degree[city]; i++) {
+					lowerRhs(neighbors[city][i], add(g[city], weights[city][i]));
+				}
+			} else {
+				// underconsistent: the distance got longer, so recompute every
+				// city whose rhs() came through this one
+				g[city] = unreachable;
+				updateRhs(city);
+				for (int i = 0; i < degree[city]; i++) {
+					int next = neighbors[city][i];
+					if (rhs[next] == add(oldMiles, weights[city][i])) {
+						updateRhs(next);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Applies an edge change to the adjacency copy & to the rhs() of both ends.
+	 */
+	private void changeEdge(int city, int other, int miles) {
+		if (city == other) {
+			return;
+		}
+		int newWeight = miles < distGraph.noEdgeValue ? miles : unreachable;
+		int oldWeight = setWeight(city, other, newWeight);
+		setWeight(other, city, newWeight);
+		if (!planned || oldWeight == newWeight) {
+			return;
+		}
+		if (newWeight < oldWeight) {
+			lowerRhs(other, add(g[city], newWeight));
+			lowerRhs(city, add(g[other], newWeight));
+		} else {
+			if (rhs[other] == add(g[city], oldWeight)) {
+				updateRhs(other);
+			}
+			if (rhs[city] == add(g[other], oldWeight)) {
+				updateRhs(city);
+			}
+		}
+	}
+
+	/**
+	 * Sets the weight of the edge from city to other, adding it if needed.
+	 *
+	 * @return the old weight, unreachable if there was no edge
+	 */
+	private int setWeight(int city, int other, int weight) {
+		for (int i = 0; i < degree[city]; i++) {
+			if (neighbors[city][i] == other) {
+				int old = weights[city][i];
+				weights[city][i] = weight;
+				return old;
+			}
+		}
+		if (weight != unreachable) {
+			int d = degree[city];
+			if (d == neighbors[city].length) {
+				neighbors[city] = Arrays.copyOf(neighbors[city], d * 2);
+				weights[city] = Arrays.copyOf(weights[city], d * 2);
+			}
+			neighbors[city][d] = other;
+			weights[city][d] = weight;
+			degree[city]++;
+		}
+		return unreachable;
+	}
+
+	/**
+	 * Offers a distance to a city, keeping its rhs() if that is shorter.
+	 */
+	private void lowerRhs(int city, int miles) {
+		if (city != sourceCity && miles < rhs[city]) {
+			touch(city);
+			rhs[city] = miles;
+			enqueue(city);
+		}
+	}
+
+	/**
+	 * Recomputes a city's rhs() from all its neighbors.
+	 */
+	private void updateRhs(int city) {
+		if (city == sourceCity) {
+			return;
+		}
+		int best = unreachable;
+		for (int i = 0; i < degree[city]; i++) {
+			best = Math.min(best, add(g[neighbors[city][i]], weights[city][i]));
+		}
+		touch(city);
+		rhs[city] = best;
+		enqueue(city);
+	}
+
+	/**
+	 * Queues an inconsistent city with its current key. The queue breaks f()
+	 * ties on the larger g(), & LPA* on the smaller second key, so the second
+	 * key is queued negated.
+	 */
+	private void enqueue(int city) {
+		if (g[city] != rhs[city]) {
+			int min = Math.min(g[city], rhs[city]);
+			key1[city] = add(min, heuristic.estimate(city, goalCity));
+			key2[city] = min;
+			cityQueue.update(city, key1[city], -min, city);
+		}
+	}
+
+	private void touch(int city) {
+		if (touchStamp[city] != generation) {
+			touchStamp[city] = generation;
+			touched++;
+		}
+	}
+
+	/**
+	 * @return a + b, unreachable if either is or the sum overflows
+	 */
+	private static int add(int a, int b) {
+		if (a == unreachable || b == unreachable) {
+			return unreachable;
+		}
+		return (int) Math.min((long) a + b, unreachable);
+	}
+}
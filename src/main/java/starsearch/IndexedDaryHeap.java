@@ -0,0 +1,144 @@
+package starsearch;
+
+import java.util.Arrays;
+
+/**
+ * An indexed d-ary min heap of cities. The position of every queued city is
+ * kept so update() is a true decrease-key in O(log n) instead of a remove &
+ * re-sort.
+ */
+public class IndexedDaryHeap implements FrontierQueue {
+	private final int arity;
+	private int[] heap; // cities in heap order
+	private int[] position; // heap index of each city, -1 if not queued
+	private int[] fValue;
+	private int[] gValue;
+	private int size;
+
+	/**
+	 * Constructor
+	 *
+	 * @param numCities
+	 *            number of cities in the graph
+	 * @param arity
+	 *            children per heap node, at least 2
+	 */
+	IndexedDaryHeap(int numCities, int arity) {
+		if (arity < 2) {
+			throw new IllegalArgumentException("arity must be at least 2: " + arity);
+		}
+		this.arity = arity;
+		heap = new int[numCities];
+		position = new int[numCities];
+		fValue = new int[numCities];
+		gValue = new int[numCities];
+		Arrays.fill(position, -1);
+	}
+
+	@Override
+	public void update(int cityIndex, int fVal, int gVal, int processingCity) {
+		int i = position[cityIndex];
+		fValue[cityIndex] = fVal;
+		gValue[cityIndex] = gVal;
+		if (i < 0) {
+			i = size++;
+			heap[i] = cityIndex;
+			position[cityIndex] = i;
+		}
+		siftDown(siftUp(i));
+	}
+
+	@Override
+	public int pop() {
+		int city = heap[0];
+		position[city] = -1;
+		size--;
+		if (size > 0) {
+			heap[0] = heap[size];
+			position[heap[0]] = 0;
+			siftDown(0);
+		}
+		return city;
+	}
+
+	@Override
+	public int peekFValue() {
+		return fValue[heap[0]];
+	}
+
+	@Override
+	public boolean hasMoreCities() {
+		return size > 0;
+	}
+
+	@Override
+	public boolean contains(int cityIndex) {
+		return position[cityIndex] >= 0;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public void clear() {
+		for (int i = 0; i < size; i++) {
+			position[heap[i]] = -1;
+		}
+		size = 0;
+	}
+
+	/**
+	 * Moves the entry at heap index i towards the root until it is in order.
+	 *
+	 * @return the final heap index of the entry
+	 */
+	private int siftUp(int i) {
+		int city = heap[i];
+		while (i > 0) {
+			int parent = (i - 1) / arity;
+			if (!precedes(city, heap[parent])) {
+				break;
+			}
+			heap[i] = heap[parent];
+			position[heap[i]] = i;
+			i = parent;
+		}
+		heap[i] = city;
+		position[city] = i;
+		return i;
+	}
+
+	/**
+	 * Moves the entry at heap index i towards the leaves until it is in order.
+	 */
+	private void siftDown(int i) {
+		int city = heap[i];
+		while (true) {
+			int first = i * arity + 1;
+			if (first >= size) {
+				break;
+			}
+			int best = first;
+			int last = Math.min(first + arity, size);
+			for (int c = first + 1; c < last; c++) {
+				if (precedes(heap[c], heap[best])) {
+					best = c;
+				}
+			}
+			if (!precedes(heap[best], city)) {
+				break;
+			}
+			heap[i] = heap[best];
+			position[heap[i]] = i;
+			i = best;
+		}
+		heap[i] = city;
+		position[city] = i;
+	}
+
+	private boolean precedes(int city1, int city2) {
+		return FrontierQueue.precedes(fValue[city1], gValue[city1], city1, fValue[city2], gValue[city2], city2);
+	}
+}
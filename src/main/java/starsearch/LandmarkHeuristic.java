@@ -0,0 +1,178 @@
+package starsearch;
+
+import java.util.Arrays;
+
+/**
+ * ALT heuristic: A*, landmarks & the triangle inequality. The shortest
+ * distance from each of k landmark cities to every city is computed once. For
+ * any landmark L, |d(L, goal) - d(L, city)| is never more than d(city, goal),
+ * and the estimate is the largest of these bounds. Memory is O(kN), one int
+ * array per landmark.
+ *
+ * Landmarks are chosen farthest first: the first is the city farthest from
+ * city 0, and each next one is the city farthest from all landmarks so far.
+ * Landmarks on the edge of the graph give the tightest bounds, and each
+ * Dijkstra run used to choose a landmark is also its distance array, so
+ * precomputation is k single source searches.
+ *
+ * The distances hold only for the edges they were computed from, so a
+ * checksum of those edges is kept. For an edited snapshot, forSnapshot()
+ * returns a LandmarkHeuristic rebuilt from it, shared by all searches.
+ */
+public class LandmarkHeuristic implements Heuristic {
+	private static final int unreachable = Integer.MAX_VALUE;
+
+	private final int[] landmarks;
+	private final int[][] distances; // distances[l][city] from landmark l
+	private final int numCities;
+	private final int sourceChecksum; // CsrGraph.checksum() of the edges used
+	private volatile GraphSnapshot matchedSnapshot; // last snapshot found to match
+	private volatile LandmarkHeuristic rebuilt; // for the latest edited snapshot seen
+
+	/**
+	 * Chooses k landmarks & computes their distances.
+	 *
+	 * @param distGraph
+	 * @param k
+	 *            number of landmarks, at most the number of cities
+	 */
+	LandmarkHeuristic(Graph distGraph, int k) {
+		this(distGraph.getSnapshot(), k);
+	}
+
+	private LandmarkHeuristic(GraphSnapshot snapshot, int k) {
+		CsrGraph graph = snapshot.getAdjacency();
+		int n = graph.length();
+		if (k < 1 || k > n) {
+			throw new IllegalArgumentException("Landmark count must be 1 to " + n + ": " + k);
+		}
+		landmarks = new int[k];
+		distances = new int[k][];
+		FrontierQueue queue = FrontierType.DARY_HEAP.create(n);
+		int[] nearest = new int[n]; // distance to the nearest landmark so far
+		Arrays.fill(nearest, unreachable);
+		int[] fromStart = shortestDistances(graph, 0, queue);
+		int landmark = farthest(fromStart);
+		for (int l = 0; l < k; l++) {
+			landmarks[l] = landmark;
+			distances[l] = shortestDistances(graph, landmark, queue);
+			for (int city = 0; city < n; city++) {
+				nearest[city] = Math.min(nearest[city], distances[l][city]);
+			}
+			nearest[landmark] = -1; // never chosen twice
+			landmark = farthest(nearest);
+		}
+		numCities = n;
+		sourceChecksum = graph.checksum();
+		matchedSnapshot = snapshot;
+	}
+
+	@Override
+	public int estimate(int city, int goalCity) {
+		int best = 0;
+		for (int[] fromLandmark : distances) {
+			int toCity = fromLandmark[city];
+			int toGoal = fromLandmark[goalCity];
+			if (toCity != unreachable && toGoal != unreachable) {
+				best = Math.max(best, Math.abs(toGoal - toCity));
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Returns this heuristic if snapshot has the edges its distances were
+	 * computed from. Otherwise k landmarks are chosen again & their distances
+	 * computed on snapshot, once for all searches on it.
+	 */
+	@Override
+	public Heuristic forSnapshot(GraphSnapshot snapshot) {
+		if (snapshot == matchedSnapshot) {
+			return this;
+		}
+		LandmarkHeuristic replacement = rebuilt;
+		if (replacement != null && snapshot == replacement.matchedSnapshot) {
+			return replacement;
+		}
+		if (matches(snapshot)) {
+			return this;
+		}
+		synchronized (this) {
+			replacement = rebuilt;
+			if (replacement == null || !replacement.matches(snapshot)) {
+				replacement = new LandmarkHeuristic(snapshot, landmarks.length);
+				rebuilt = replacement;
+			}
+		}
+		return replacement;
+	}
+
+	/**
+	 * Bounds from the triangle inequality are always consistent.
+	 */
+	@Override
+	public boolean isConsistent() {
+		return true;
+	}
+
+	/**
+	 * @param snapshot
+	 * @return true if snapshot has the edges the distances were computed from
+	 */
+	public boolean matches(GraphSnapshot snapshot) {
+		if (snapshot == matchedSnapshot) {
+			return true;
+		}
+		if (numCities != snapshot.length() || sourceChecksum != snapshot.getAdjacency().checksum()) {
+			return false;
+		}
+		matchedSnapshot = snapshot;
+		return true;
+	}
+
+	/**
+	 * @return the landmark cities, in the order chosen
+	 */
+	public int[] getLandmarks() {
+		return landmarks.clone();
+	}
+
+	/**
+	 * Dijkstra from one city over the whole graph.
+	 *
+	 * @return distance to every city, Integer.MAX_VALUE if not connected
+	 */
+	private static int[] shortestDistances(CsrGraph graph, int sourceCity, FrontierQueue queue) {
+		int[] distance = new int[graph.length()];
+		Arrays.fill(distance, unreachable);
+		distance[sourceCity] = 0;
+		queue.clear();
+		queue.update(sourceCity, 0, 0, sourceCity);
+		while (queue.hasMoreCities()) {
+			int city = queue.pop();
+			for (int edge = graph.firstEdge(city); edge < graph.endEdge(city); edge++) {
+				int next = graph.getTarget(edge);
+				int nextDistance = distance[city] + graph.getWeight(edge);
+				if (nextDistance < distance[next]) {
+					distance[next] = nextDistance;
+					queue.update(next, nextDistance, nextDistance, city);
+				}
+			}
+		}
+		return distance;
+	}
+
+	/**
+	 * @return the city with the largest distance, preferring one not connected
+	 *         at all so every component gets a landmark
+	 */
+	private static int farthest(int[] distance) {
+		int farthest = 0;
+		for (int city = 1; city < distance.length; city++) {
+			if (distance[city] > distance[farthest]) {
+				farthest = city;
+			}
+		}
+		return farthest;
+	}
+}
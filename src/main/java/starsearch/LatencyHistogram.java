@@ -0,0 +1,105 @@
+package starsearch;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of durations in nanoseconds, safe to record into from many threads
+ * without locking. Values below 16 have a bucket each; above that every power
+ * of two is split into 16 buckets, so a percentile is within 1/16 of the true
+ * value while the whole long range fits in under 1000 counters.
+ */
+public class LatencyHistogram {
+	private static final int subBucketBits = 4;
+	private static final int subBuckets = 1 << subBucketBits;
+
+	private final AtomicLongArray counts = new AtomicLongArray((64 - subBucketBits) * subBuckets);
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sum = new LongAdder();
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+	LatencyHistogram() {
+	}
+
+	/**
+	 * @param nanos
+	 *            negative values are recorded as 0
+	 */
+	public void record(long nanos) {
+		long value = Math.max(0, nanos);
+		counts.incrementAndGet(bucket(value));
+		count.increment();
+		sum.add(value);
+		max.accumulate(value);
+	}
+
+	public long getCount() {
+		return count.sum();
+	}
+
+	public long getMax() {
+		return max.get();
+	}
+
+	public double getMean() {
+		long n = count.sum();
+		return n == 0 ? 0 : (double) sum.sum() / n;
+	}
+
+	/**
+	 * Returns the value at a fraction of the recorded values, such as 0.99 for
+	 * the 99th percentile, rounded up to its bucket's upper bound.
+	 *
+	 * @param fraction
+	 *            0 to 1
+	 * @return nanoseconds, 0 if nothing was recorded
+	 */
+	public long getPercentile(double fraction) {
+		long total = 0;
+		for (int i = 0; i < counts.length(); i++) {
+			total += counts.get(i);
+		}
+		if (total == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(fraction * total));
+		long seen = 0;
+		for (int i = 0; i < counts.length(); i++) {
+			seen += counts.get(i);
+			if (seen >= rank) {
+				return Math.min(upperBound(i), getMax());
+			}
+		}
+		return getMax();
+	}
+
+	/**
+	 * Sets every count to 0. Values recorded at the same time may be lost.
+	 */
+	public void reset() {
+		for (int i = 0; i < counts.length(); i++) {
+			counts.set(i, 0);
+		}
+		count.reset();
+		sum.reset();
+		max.reset();
+	}
+
+	private static int bucket(long value) {
+		if (value < subBuckets) {
+			return (int) value;
+		}
+		int shift = 63 - Long.numberOfLeadingZeros(value) - subBucketBits;
+		return (shift + 1) * subBuckets + (int) ((value >>> shift) - subBuckets);
+	}
+
+	private static long upperBound(int bucket) {
+		if (bucket < subBuckets) {
+			return bucket;
+		}
+		int shift = bucket / subBuckets - 1;
+		long subBucket = bucket % subBuckets + subBuckets;
+		return ((subBucket + 1) << shift) - 1;
+	}
+}
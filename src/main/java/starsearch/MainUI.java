@@ -8,18 +8,23 @@ import javafx.scene.control.Label;
 import javafx.scene.layout.GridPane;
 import javafx.stage.Stage;
 import javafx.application.Application;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
- * Driver UI for AStarSearch
+ * Driver UI for AStarSearch. Searches & their output files are written by an
+ * AsyncSearch in the background, so the window stays responsive and a running
+ * search can be cancelled.
  *
  */
 public class MainUI extends Application {
@@ -34,9 +39,9 @@ public class MainUI extends Application {
 
 	// Search Variables
 	public static String valueSeparator = "\\s+";
-	public static String inputFileDistanceName = "MnDOTactualDistances-spaces.txt";
+	public static String inputFileDistanceName = SearchRunner.defaultDistanceFileName;
 	public static File inputFileDistance;
-	public static String inputFileHeuristicName = "MnDOTheuristicDistances-spaces.txt";
+	public static String inputFileHeuristicName = SearchRunner.defaultHeuristicFileName;
 	public static File inputFileHeuristic;
 	public static String outputFileName;
 	public static Graph distGraph;
@@ -45,7 +50,9 @@ public class MainUI extends Application {
 	public static int startCityIndex;
 	public static String goalCity;
 	public static int goalCityIndex;
-	public static List<String> cityNames; // For user selection
+	public static int maxSuggestions = 50; // cities listed in a chooser dropdown
+	public static AsyncSearch asyncSearch;
+	private CompletableFuture<File> pendingSearch; // running search, null if none
 
 	public static void main(String[] args) {
 		launch(args);
@@ -57,8 +64,9 @@ public class MainUI extends Application {
 		inputDirectory = workingDirectory;
 
 		// Initialize input/output files
-		inputFileDistance = new File(workingDirectory + "\\src\\main\\resources", inputFileDistanceName);
-		inputFileHeuristic = new File(workingDirectory + "\\src\\main\\resources", inputFileHeuristicName);
+		File resourceDirectory = workingDirectory.toPath().resolve(SearchRunner.defaultInputDirectory).toFile();
+		inputFileDistance = new File(resourceDirectory, inputFileDistanceName);
+		inputFileHeuristic = new File(resourceDirectory, inputFileHeuristicName);
 		
 		while(!inputFileDistance.isFile()) {
 			updateInputFilePath();
@@ -70,30 +78,54 @@ public class MainUI extends Application {
 		// Create graphs
 		distGraph = new Graph(inputFileDistance);
 		heurGraph = new Graph(inputFileHeuristic);
-
-		// Create list of cities for user to choose from
-		cityNames = distGraph.getCityList();
-		List<String> list = new ArrayList<String>(cityNames);
-		ObservableList<String> observableList = FXCollections.observableList(list);
+		asyncSearch = new AsyncSearch(distGraph, new MatrixHeuristic(heurGraph));
 
 		// Source City Chooser
-		ComboBox<String> cbSourceCity = new ComboBox<>(observableList);
+		ComboBox<String> cbSourceCity = createCityChooser();
 		cbSourceCity.setOnAction((event) -> {
 			startCity = cbSourceCity.getValue();
 		});
 		// Goal City Chooser
-		ComboBox<String> cbGoalCity = new ComboBox<>(observableList);
+		ComboBox<String> cbGoalCity = createCityChooser();
 		cbGoalCity.setOnAction((event) -> {
 			goalCity = cbGoalCity.getValue();
 		});
 
 		// UI Buttons & Labels
 		Button searchButton = new Button("Run Search");
+		Button cancelButton = new Button("Cancel");
+		cancelButton.setDisable(true);
 		
 		// Notify user that output file of search results has been created
 		searchButton.setOnAction(e -> {
-			runSearch();
-			AlertBox.display("Search Completed", "Output results file written at  at \r\n" + workingDirectory+"\\target");
+			startCity = cbSourceCity.getEditor().getText();
+			goalCity = cbGoalCity.getEditor().getText();
+			if (distGraph.getCityIndex(startCity) < 0 || distGraph.getCityIndex(goalCity) < 0) {
+				AlertBox.display("Unknown City", "Please choose a city from the list.");
+				return;
+			}
+			searchButton.setDisable(true);
+			cancelButton.setDisable(false);
+			pendingSearch = runSearch();
+			pendingSearch.whenComplete((file, error) -> Platform.runLater(() -> {
+				pendingSearch = null;
+				searchButton.setDisable(false);
+				cancelButton.setDisable(true);
+				Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+				if (cause == null) {
+					AlertBox.display("Search Completed", "Output results file written at  at \r\n" + file.getParent());
+				} else if (cause instanceof UncheckedIOException) {
+					AlertBox.display("Output Failed", "Could not write " + outputFile + "\r\n"
+							+ cause.getCause().getMessage());
+				} else if (!(cause instanceof CancellationException)) {
+					AlertBox.display("Search Failed", String.valueOf(cause));
+				}
+			}));
+		});
+		cancelButton.setOnAction(e -> {
+			if (pendingSearch != null) {
+				pendingSearch.cancel(false);
+			}
 		});
 		Label labSourceCity = new Label("Source City");
 		Label labGoalCity = new Label("Goal City");
@@ -108,13 +140,14 @@ public class MainUI extends Application {
 		gridPane.add(labGoalCity, 0, 1);
 		gridPane.add(cbGoalCity, 1, 1);
 		gridPane.add(searchButton, 2, 1);
+		gridPane.add(cancelButton, 2, 0);
 
 		scene = new Scene(gridPane, 400, 100);
 		
 		// CSS stylesheet
-		File f = new File(workingDirectory+"\\src\\main\\resources\\" +"style.css");
+		File f = new File(resourceDirectory, "style.css");
 		scene.getStylesheets().clear();
-		scene.getStylesheets().add( "file:///" + f.getAbsolutePath().replace("\\", "/"));
+		scene.getStylesheets().add(f.toURI().toString());
 		
 		Stage stage = primaryStage;
 		stage.setTitle("A* Search MN");
@@ -122,33 +155,80 @@ public class MainUI extends Application {
 		stage.show();
 	}
 
+	@Override
+	public void stop() {
+		if (asyncSearch != null) {
+			asyncSearch.close();
+		}
+	}
+
 	/**
-	 * Primary method to run search.
+	 * Primary method to run search. The search & the output file are done in
+	 * the background.
+	 * 
+	 * @return future output file, failing with UncheckedIOException if it could
+	 *         not be written
 	 */
-	public void runSearch() {
+	public CompletableFuture<File> runSearch() {
 		// look up cities to get index
 		startCityIndex = distGraph.getCityIndex(startCity);
 		goalCityIndex = distGraph.getCityIndex(goalCity);
 
-		// Instantiate the search Class with the input graphs
-		AStarSearch search = new AStarSearch(distGraph, heurGraph);
-		search.search(startCity, goalCity);
-
 		// Create output file
 		workingDirectory = new File(System.getProperty("user.dir"));
 		outputFileName = (startCity + "-" + goalCity + ".txt");
-		outputFile = new File(workingDirectory+ "\\target", outputFileName);
-
-		// Print results to file
-		try {
-			FileWriter fw = new FileWriter(outputFile, true);
-			fw.write(search.frontierTrackerToString() + "\r\n\r\n");
-			fw.write("\t\t*** Cities gone through, from source to destination ***\r\n");
-			fw.write(search.pathTakenToString());
-			fw.close();
-		} catch (IOException e) {
+		outputFile = new File(new File(workingDirectory, "target"), outputFileName);
+		File file = outputFile;
+
+		return asyncSearch.search(startCityIndex, goalCityIndex, null, search -> {
+			// Print results to file
+			try (SearchOutput out = new SearchOutput(new FileWriter(file, true), SearchOutput.Verbosity.FULL)) {
+				out.writeTables(search);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			return file;
+		});
+	}
+
+	/**
+	 * Creates an editable city chooser. Typing filters the dropdown to the
+	 * cities whose name or code starts with the typed text, so the full city
+	 * list is never loaded into the UI.
+	 * 
+	 * @return ComboBox of city names
+	 */
+	private ComboBox<String> createCityChooser() {
+		ComboBox<String> comboBox = new ComboBox<>();
+		comboBox.setEditable(true);
+		comboBox.getItems().setAll(suggestCities(""));
+		comboBox.getEditor().textProperty().addListener((observable, oldText, newText) -> {
+			if (newText.equals(comboBox.getValue())) {
+				return; // text set by choosing from the dropdown
+			}
+			comboBox.getItems().setAll(suggestCities(newText));
+			if (comboBox.getEditor().isFocused() && !comboBox.getItems().isEmpty()) {
+				comboBox.show();
+			}
+		});
+		return comboBox;
+	}
+
+	/**
+	 * Looks up city names for a chooser dropdown.
+	 * 
+	 * @param prefix typed start of a city name or code
+	 * @return at most maxSuggestions city names
+	 */
+	private List<String> suggestCities(String prefix) {
+		int[] cities = distGraph.getSymbolTable().complete(prefix, maxSuggestions);
+		List<String> names = new ArrayList<String>(cities.length);
+		for (int city : cities) {
+			names.add(distGraph.getCityName(city));
 		}
+		return names;
 	}
+
 	/**
 	 * Called if input files not found.
 	 * Calls a fileChooser for user to select input file.
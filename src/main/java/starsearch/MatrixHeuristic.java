@@ -0,0 +1,24 @@
+package starsearch;
+
+/**
+ * Heuristic read from a full city by city Graph of estimates, such as
+ * MnDOTheuristicDistances-spaces.txt. Memory is O(N^2). The estimates are not
+ * checked against the distances, so it is not known to be consistent: the
+ * MnDOT estimates exceed the shortest distance for some pairs.
+ */
+public class MatrixHeuristic implements Heuristic {
+	private Graph heurGraph;
+
+	MatrixHeuristic(Graph heurGraph) {
+		this.heurGraph = heurGraph;
+	}
+
+	@Override
+	public int estimate(int city, int goalCity) {
+		return heurGraph.getDistance(city, goalCity);
+	}
+
+	public Graph getGraph() {
+		return heurGraph;
+	}
+}
@@ -0,0 +1,100 @@
+package starsearch;
+
+import java.util.Arrays;
+
+/**
+ * Dijkstra search from one city to a set of target cities, used to fill a row
+ * of a DistanceTable. One sweep settles every target, instead of one search
+ * per pair, and stops as soon as the last target is settled. Distance &
+ * target arrays are reused between sweeps with generation stamps.
+ */
+class OneToManySearch {
+	private final FrontierType frontierType;
+	private final FrontierQueue queue;
+	private final int[] distance;
+	private final int[] stamp;
+	private final int[] targetStamp; // marks the targets not yet settled
+	private int generation;
+	private int settledCount;
+
+	OneToManySearch(Graph distGraph, FrontierType frontierType) {
+		int n = distGraph.length();
+		this.frontierType = frontierType;
+		queue = frontierType.create(n);
+		distance = new int[n];
+		stamp = new int[n];
+		targetStamp = new int[n];
+	}
+
+	/**
+	 * Finds the distance from sourceCity to each target.
+	 *
+	 * @param graph
+	 *            adjacency of the Graph snapshot the table is computed from
+	 * @param sourceCity
+	 * @param targets
+	 * @param miles
+	 *            receives the distance to targets[j] at offset + j, -1 if it
+	 *            cannot be reached
+	 * @param offset
+	 */
+	public void search(CsrGraph graph, int sourceCity, int[] targets, int[] miles, int offset) {
+		if (++generation == Integer.MAX_VALUE) {
+			Arrays.fill(stamp, 0);
+			Arrays.fill(targetStamp, 0);
+			generation = 1;
+		}
+		int remaining = 0;
+		for (int target : targets) {
+			if (targetStamp[target] != generation) {
+				targetStamp[target] = generation;
+				remaining++;
+			}
+		}
+		settledCount = 0;
+		queue.clear();
+		setDistance(sourceCity, 0);
+		queue.update(sourceCity, 0, 0, sourceCity);
+		while (remaining > 0 && queue.hasMoreCities()) {
+			int city = queue.pop();
+			settledCount++;
+			int cityMiles = getDistance(city);
+			if (targetStamp[city] == generation) {
+				targetStamp[city] = 0;
+				remaining--;
+			}
+			for (int edge = graph.firstEdge(city); edge < graph.endEdge(city); edge++) {
+				int next = graph.getTarget(edge);
+				int nextMiles = cityMiles + graph.getWeight(edge);
+				if (nextMiles < getDistance(next)) {
+					setDistance(next, nextMiles);
+					queue.update(next, nextMiles, nextMiles, city);
+				}
+			}
+		}
+		for (int j = 0; j < targets.length; j++) {
+			int targetMiles = getDistance(targets[j]);
+			miles[offset + j] = targetMiles == Integer.MAX_VALUE ? -1 : targetMiles;
+		}
+	}
+
+	public FrontierType getFrontierType() {
+		return frontierType;
+	}
+
+	/**
+	 * @return cities settled by the last sweep
+	 */
+	public int getSettledCount() {
+		return settledCount;
+	}
+
+	private int getDistance(int city) {
+		return stamp[city] == generation ? distance[city] : Integer.MAX_VALUE;
+	}
+
+	private void setDistance(int city, int miles) {
+		stamp[city] = generation;
+		distance[city] = miles;
+	}
+}
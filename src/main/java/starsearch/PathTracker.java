@@ -1,43 +1,61 @@
 package starsearch;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Arrays;
+
 /**
  * Used to track the progress of AStarSearch frontier. Contains methods to
- * analyze search output and return results. Each array in the set contains:
- * city | f() | LCP ancestor city | heuristic to goal city | LCP miles to city
+ * analyze search output and return results. Each city has an entry of:
+ * f() | LCP ancestor city | heuristic to goal city | LCP miles to city
+ * 
+ * A PathTracker is reused for every search of its AStarSearch. Entries are
+ * kept in flat arrays and stamped with the search generation they were written
+ * in; entries from older searches read as not reached. Starting a search is O(1)
+ * and each search only costs the cities it touches.
  */
 public class PathTracker {
-	private int[][] pathTracker;
+	private int[] costFunction;
+	private int[] prevCity;
+	private int[] heuristicToGoal;
+	private int[] lcpMiles;
+	private int[] stamp; // generation each entry was last written in
+	private int generation;
 	private int[] pathTaken;
 	private Graph distGraph;
-	private Graph heurGraph;
+	private Heuristic heuristic;
 	private int goalCity;
 	private int sourceCity;
 
-	// These are for readability, labels for pathTracker entries
-	private final int cityCol = 0;
-	private final int costFunctionCol = 1;
-	private final int prevCityCol = 2;
-	private final int heurCol = 3;
-	private final int lcpMilesCol = 4;
-
-	private final int numArrayColumns = 5; // Size of array for each city
-	private final int noPathYet = 9999; // f() & LCP initialization value
-	private final int startCityPrevCity = noPathYet;
+	private final int noPathYet = Integer.MAX_VALUE; // f() & LCP initialization value
+	private final int noPreviousCity = -1; // prevCity initialization value
+	private final int startCityPrevCity = noPreviousCity;
 
 	/**
-	 * 1st Graph is distance Graph, 2nd Graph is heuristic Graph.
+	 * 1st Graph is distance Graph, 2nd is the heuristic to the goal city.
 	 * 
 	 * @param distGraph
-	 * @param heurGraph
+	 * @param heuristic
 	 */
-	PathTracker(Graph distGraph, Graph heurGraph) {
+	PathTracker(Graph distGraph, Heuristic heuristic) {
 		this.distGraph = distGraph;
-		this.heurGraph = heurGraph;
+		this.heuristic = heuristic;
+	}
+
+	/**
+	 * Replaces the heuristic used from the next initializePathTracker() on.
+	 * 
+	 * @param heuristic
+	 */
+	void setHeuristic(Heuristic heuristic) {
+		this.heuristic = heuristic;
 	}
 
 	/**
-	 * Initializes the path tracker for a sourceCity & goalCity. The heuristic to
-	 * the goal city will be added for every city.
+	 * Initializes the path tracker for a sourceCity & goalCity. Entries of other
+	 * cities are reset lazily, when they are first touched by the search.
 	 * 
 	 * @param sourceCity
 	 * @param goalCity
@@ -45,23 +63,46 @@ public class PathTracker {
 	public void initializePathTracker(int sourceCity, int goalCity) {
 		this.goalCity = goalCity;
 		this.sourceCity = sourceCity;
-		// create the container with an array for each city in the graph
-		pathTracker = new int[distGraph.length()][numArrayColumns];
-
-		// assign each array in container city, heuristic to goal city, & noPathYet to
-		// other values.
-		for (int i = 0; i < pathTracker.length; i++) {
-			pathTracker[i][cityCol] = i;
-			pathTracker[i][costFunctionCol] = noPathYet;
-			pathTracker[i][heurCol] = heurGraph.getDistance(i, goalCity);
-			pathTracker[i][lcpMilesCol] = noPathYet;
-			pathTracker[i][prevCityCol] = noPathYet;
+		pathTaken = null;
+
+		// create the containers on first use, or if the graph has changed size
+		int numCities = distGraph.length();
+		if (stamp == null || stamp.length != numCities) {
+			costFunction = new int[numCities];
+			prevCity = new int[numCities];
+			heuristicToGoal = new int[numCities];
+			lcpMiles = new int[numCities];
+			stamp = new int[numCities];
+			generation = 0;
 		}
+		// restart the stamps before the generation counter overflows
+		if (generation == Integer.MAX_VALUE) {
+			Arrays.fill(stamp, 0);
+			generation = 0;
+		}
+		generation++;
+
 		// create special case entry for sourceCity
-		pathTracker[sourceCity][costFunctionCol] = heurGraph.getDistance(sourceCity, goalCity); // f = heuristic for
-																								// source
-		pathTracker[sourceCity][prevCityCol] = startCityPrevCity; // source is self for start city
-		pathTracker[sourceCity][lcpMilesCol] = 0; // 0 miles to get to the start city from the start city
+		touch(sourceCity);
+		costFunction[sourceCity] = heuristicToGoal[sourceCity]; // f = heuristic for source
+		prevCity[sourceCity] = startCityPrevCity; // source is self for start city
+		lcpMiles[sourceCity] = 0; // 0 miles to get to the start city from the start city
+	}
+
+	/**
+	 * Resets the entry of a city the first time it is written in this
+	 * generation.
+	 * 
+	 * @param city
+	 */
+	private void touch(int city) {
+		if (stamp[city] != generation) {
+			stamp[city] = generation;
+			costFunction[city] = noPathYet;
+			prevCity[city] = noPreviousCity;
+			heuristicToGoal[city] = heuristic.estimate(city, goalCity);
+			lcpMiles[city] = noPathYet;
+		}
 	}
 
 	/**
@@ -74,19 +115,31 @@ public class PathTracker {
 		int arraySize = 1;
 
 		// find length needed for array
-		while (pathTracker[currentCity][prevCityCol] != noPathYet) {
+		while (getPreviousCity(currentCity) != noPreviousCity) {
 			arraySize++;
-			currentCity = pathTracker[currentCity][prevCityCol];
+			currentCity = getPreviousCity(currentCity);
 		}
 		pathTaken = new int[arraySize];
 		currentCity = goalCity;
 		for (index = arraySize - 1; index > 0; index--) {
 			pathTaken[index] = currentCity;
-			currentCity = pathTracker[currentCity][prevCityCol];
+			currentCity = getPreviousCity(currentCity);
 		}
 		pathTaken[0] = sourceCity;
 	}
 
+	/**
+	 * Returns the path from source city to goal city, calculating it if needed.
+	 * 
+	 * @return int[] of cities
+	 */
+	public int[] getPathTaken() {
+		if (pathTaken == null) {
+			findPathTaken();
+		}
+		return pathTaken;
+	}
+
 	/**
 	 * Provides a table formatted String list of the path taken from source city to
 	 * goal city. city code | city | next city | distance | total miles
@@ -94,13 +147,22 @@ public class PathTracker {
 	 * @return String
 	 */
 	public String pathTakenToString() {
-		String s = "";
-		int city;
-		String cityCode;
-		String cityName;
-		String nextCity = "";
-		String distance = "";
-		String milesTraveled;
+		StringWriter s = new StringWriter();
+		try {
+			writePathTaken(s);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e); // not thrown by StringWriter
+		}
+		return s.toString();
+	}
+
+	/**
+	 * Writes the pathTakenToString() table.
+	 * 
+	 * @param out
+	 * @throws IOException
+	 */
+	public void writePathTaken(Writer out) throws IOException {
 		int length = 20; // size of largest city, for formatting
 
 		// ensure pathTaken has been calculated
@@ -109,79 +171,87 @@ public class PathTracker {
 		}
 
 		// create headers for output
-		s = s.concat("City#   \tCity Name\t\tNext City\t\tDistance\t\tMiles Traveled\r\n");
+		out.write("City#   \tCity Name\t\tNext City\t\tDistance\t\tMiles Traveled\r\n");
 
-		// obtain values for String variables and add to output String
 		for (int i = 0; i < pathTaken.length; i++) {
-			city = pathTaken[i];
-			cityCode = distGraph.getCityCode(city);
-			cityName = distGraph.getCityName(city);
-			milesTraveled = String.valueOf(pathTracker[city][lcpMilesCol]);
-
-			String align = "";
-
+			int city = pathTaken[i];
+			String cityName = distGraph.getCityName(city);
+			out.write(distGraph.getCityCode(city));
+			out.write("\t\t");
+			out.write(cityName);
 			for (int m = 0; m < length - cityName.length(); m++) {
-				align = align.concat(" ");
+				out.write(' ');
 			}
+			out.write('\t');
 			if (i < pathTaken.length - 1) {
-				nextCity = String.valueOf(distGraph.getCityCode(pathTaken[i + 1]));
-				distance = String.valueOf(distGraph.getDistance(city, pathTaken[i + 1]));
+				out.write(distGraph.getCityCode(pathTaken[i + 1]));
+				out.write("\t\t\t");
+				// from the search's own miles, as the Graph may have changed since
+				out.write(String.valueOf(getMilesToCity(pathTaken[i + 1]) - getMilesToCity(city)));
+			} else {
+				out.write("-\t\t\t-");
 			}
-			if (i == pathTaken.length - 1) {
-				nextCity = "-";
-				distance = "-";
-			}
-			s = s.concat(cityCode + "\t\t" + cityName + align + "\t" + nextCity + "\t\t\t" + distance + "\t\t\t"
-					+ milesTraveled + "\r\n");
+			out.write("\t\t\t");
+			out.write(String.valueOf(getMilesToCity(city)));
+			out.write("\r\n");
 		}
-		return s;
 	}
 
 	public void setCostFunction(int city, int value) {
-		pathTracker[city][costFunctionCol] = value;
+		touch(city);
+		costFunction[city] = value;
 	}
 
 	public void setPreviousCity(int city, int previousCity) {
-		pathTracker[city][prevCityCol] = previousCity;
+		touch(city);
+		prevCity[city] = previousCity;
 	}
 
 	public void setMilesToCity(int city, int milesToCity) {
-		pathTracker[city][lcpMilesCol] = milesToCity;
+		touch(city);
+		lcpMiles[city] = milesToCity;
 	}
 
 	public void setHeuristic(int city, int heuristicToGoalCity) {
-		pathTracker[city][heurCol] = heuristicToGoalCity;
+		touch(city);
+		heuristicToGoal[city] = heuristicToGoalCity;
 	}
 
 	public int getMilesToCity(int city) {
-		return pathTracker[city][lcpMilesCol];
+		return stamp[city] == generation ? lcpMiles[city] : noPathYet;
 	}
 
 	public int getPreviousCity(int city) {
-		return pathTracker[city][prevCityCol];
+		return stamp[city] == generation ? prevCity[city] : noPreviousCity;
 	}
 
 	public int getCostFunction(int city) {
-		return pathTracker[city][costFunctionCol];
+		return stamp[city] == generation ? costFunction[city] : noPathYet;
+	}
+
+	/**
+	 * Checks if the search has found any path to a city.
+	 * 
+	 * @param city
+	 * @return true once miles to the city have been set
+	 */
+	public boolean isReached(int city) {
+		return getMilesToCity(city) != noPathYet;
 	}
 
 	public int getHeuristic(int city) {
-		return pathTracker[city][heurCol];
+		touch(city);
+		return heuristicToGoal[city];
 	}
 
 	@Override
 	public String toString() {
-		String s = "";
-		String addString;
-		addString = ("index\tf()\tpreCity\theur\tlcpMls\tCity#\tCity");
-		s = s + addString + "\r\n";
-		for (int i = 0; i < pathTracker.length; i++) {
-			addString = (pathTracker[i][cityCol] + "\t" + pathTracker[i][costFunctionCol] + "\t"
-					+ pathTracker[i][prevCityCol] + "\t" + pathTracker[i][heurCol] + "\t" + pathTracker[i][lcpMilesCol]
-					+ "\t" + distGraph.getCityCode(i) + "\t" + distGraph.getCityName(i));
-			s = s + addString + "\r\n";
+		StringBuilder s = new StringBuilder("index\tf()\tpreCity\theur\tlcpMls\tCity#\tCity\r\n");
+		for (int i = 0; i < stamp.length; i++) {
+			s.append(i).append('\t').append(getCostFunction(i)).append('\t').append(getPreviousCity(i)).append('\t')
+					.append(getHeuristic(i)).append('\t').append(getMilesToCity(i)).append('\t')
+					.append(distGraph.getCityCode(i)).append('\t').append(distGraph.getCityName(i)).append("\r\n");
 		}
-		s.trim();
-		return s;
+		return s.toString();
 	}
 }
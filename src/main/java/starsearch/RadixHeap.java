@@ -0,0 +1,187 @@
+package starsearch;
+
+import java.util.Arrays;
+
+/**
+ * A radix heap of cities keyed by f(). Bucket b holds cities whose f() first
+ * differs from the last popped f() at bit b-1, so each city is moved down at
+ * most 32 times before it is popped.
+ *
+ * The heap expects monotone keys (no f() below the last popped f()), which is
+ * the case with a consistent heuristic. Smaller keys are still accepted: they
+ * are kept in bucket 0 with the minimum and popped first.
+ *
+ * Bucket 0 is kept in tie-break order, so the front of the queue is its head.
+ */
+public class RadixHeap implements FrontierQueue {
+	private final int numBuckets = 33;
+	private int[] bucketHead; // first city in each bucket, -1 if empty
+	private int[] bucketOf; // bucket of each city, -1 if not queued
+	private int[] next; // doubly linked bucket lists
+	private int[] prev;
+	private int[] fValue;
+	private int[] gValue;
+	private long[] ties; // cities moving to bucket 0, by g() then index
+	private int lastKey; // most recent minimum f()
+	private int size;
+
+	/**
+	 * Constructor
+	 *
+	 * @param numCities
+	 *            number of cities in the graph
+	 */
+	RadixHeap(int numCities) {
+		bucketHead = new int[numBuckets];
+		bucketOf = new int[numCities];
+		next = new int[numCities];
+		prev = new int[numCities];
+		fValue = new int[numCities];
+		gValue = new int[numCities];
+		ties = new long[numCities];
+		Arrays.fill(bucketHead, -1);
+		Arrays.fill(bucketOf, -1);
+	}
+
+	@Override
+	public void update(int cityIndex, int fVal, int gVal, int processingCity) {
+		if (fVal < 0) {
+			throw new IllegalArgumentException("RadixHeap keys must not be negative: " + fVal);
+		}
+		if (bucketOf[cityIndex] >= 0) {
+			unlink(cityIndex);
+			size--;
+		}
+		fValue[cityIndex] = fVal;
+		gValue[cityIndex] = gVal;
+		link(cityIndex, bucketIndex(fVal));
+		size++;
+	}
+
+	@Override
+	public int pop() {
+		int best = front();
+		unlink(best);
+		size--;
+		return best;
+	}
+
+	@Override
+	public int peekFValue() {
+		return fValue[front()];
+	}
+
+	@Override
+	public boolean hasMoreCities() {
+		return size > 0;
+	}
+
+	@Override
+	public boolean contains(int cityIndex) {
+		return bucketOf[cityIndex] >= 0;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	@Override
+	public void clear() {
+		for (int b = 0; b < numBuckets; b++) {
+			for (int c = bucketHead[b]; c >= 0; c = next[c]) {
+				bucketOf[c] = -1;
+			}
+			bucketHead[b] = -1;
+		}
+		lastKey = 0;
+		size = 0;
+	}
+
+	/**
+	 * Finds the city at the front of the queue, refilling bucket 0 if needed.
+	 */
+	private int front() {
+		if (bucketHead[0] < 0) {
+			redistribute();
+		}
+		return bucketHead[0];
+	}
+
+	/**
+	 * Empties the first non-empty bucket into the lower buckets, after raising
+	 * lastKey to the minimum f() found in it. The cities with that f() are
+	 * sorted into bucket 0 together, rather than inserted one by one.
+	 */
+	private void redistribute() {
+		int b = 1;
+		while (bucketHead[b] < 0) {
+			b++;
+		}
+		int minKey = Integer.MAX_VALUE;
+		for (int c = bucketHead[b]; c >= 0; c = next[c]) {
+			minKey = Math.min(minKey, fValue[c]);
+		}
+		lastKey = minKey;
+		int tieCount = 0;
+		int c = bucketHead[b];
+		bucketHead[b] = -1;
+		while (c >= 0) {
+			int n = next[c];
+			if (fValue[c] == minKey) {
+				ties[tieCount++] = ((long) (Integer.MAX_VALUE - gValue[c]) << 32) | c;
+			} else {
+				link(c, bucketIndex(fValue[c]));
+			}
+			c = n;
+		}
+		Arrays.sort(ties, 0, tieCount);
+		for (int i = tieCount - 1; i >= 0; i--) {
+			link((int) ties[i], 0);
+		}
+	}
+
+	private int bucketIndex(int key) {
+		if (key <= lastKey) {
+			return 0;
+		}
+		return 32 - Integer.numberOfLeadingZeros(key ^ lastKey);
+	}
+
+	/**
+	 * Adds a city to a bucket, at the head unless it is bucket 0, where it goes
+	 * after the cities that precede it.
+	 */
+	private void link(int city, int bucket) {
+		int before = -1;
+		int after = bucketHead[bucket];
+		while (bucket == 0 && after >= 0
+				&& FrontierQueue.precedes(fValue[after], gValue[after], after, fValue[city], gValue[city], city)) {
+			before = after;
+			after = next[after];
+		}
+		next[city] = after;
+		prev[city] = before;
+		if (after >= 0) {
+			prev[after] = city;
+		}
+		if (before >= 0) {
+			next[before] = city;
+		} else {
+			bucketHead[bucket] = city;
+		}
+		bucketOf[city] = bucket;
+	}
+
+	private void unlink(int city) {
+		if (prev[city] >= 0) {
+			next[prev[city]] = next[city];
+		} else {
+			bucketHead[bucketOf[city]] = next[city];
+		}
+		if (next[city] >= 0) {
+			prev[next[city]] = prev[city];
+		}
+		bucketOf[city] = -1;
+	}
+}
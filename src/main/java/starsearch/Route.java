@@ -0,0 +1,81 @@
+package starsearch;
+
+/**
+ * Result of a single search: the cities from source to goal and the total
+ * miles. Routes are immutable and can be shared between threads.
+ */
+public class Route {
+	private final int sourceCity;
+	private final int goalCity;
+	private final int[] path;
+	private final int miles;
+
+	/**
+	 * Constructor
+	 * 
+	 * @param sourceCity
+	 * @param goalCity
+	 * @param path cities from source to goal, empty if the goal was not reached
+	 * @param miles total miles, -1 if the goal was not reached
+	 */
+	Route(int sourceCity, int goalCity, int[] path, int miles) {
+		this.sourceCity = sourceCity;
+		this.goalCity = goalCity;
+		this.path = path;
+		this.miles = miles;
+	}
+
+	public int getSourceCity() {
+		return sourceCity;
+	}
+
+	public int getGoalCity() {
+		return goalCity;
+	}
+
+	/**
+	 * @return a copy of the cities from source to goal
+	 */
+	public int[] getPath() {
+		return path.clone();
+	}
+
+	public int getPathLength() {
+		return path.length;
+	}
+
+	public int getCity(int i) {
+		return path[i];
+	}
+
+	public int getMiles() {
+		return miles;
+	}
+
+	public boolean isFound() {
+		return path.length > 0;
+	}
+
+	/**
+	 * Returns the same route driven from goal to source. The graph is undirected,
+	 * so it is also the shortest route that way.
+	 * 
+	 * @return Route
+	 */
+	public Route reversed() {
+		int[] reversedPath = new int[path.length];
+		for (int i = 0; i < path.length; i++) {
+			reversedPath[i] = path[path.length - 1 - i];
+		}
+		return new Route(goalCity, sourceCity, reversedPath, miles);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder s = new StringBuilder().append(sourceCity).append("->").append(goalCity).append(':');
+		for (int i = 0; i < path.length; i++) {
+			s.append(' ').append(path[i]);
+		}
+		return s.append(" (").append(miles).append(" miles)").toString();
+	}
+}
@@ -0,0 +1,176 @@
+package starsearch;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Least recently used cache of Routes for one Graph, for traffic that repeats
+ * the same city pairs. The graph is undirected, so a pair & its reverse share
+ * one entry, stored with the lower numbered city first.
+ *
+ * Only shortest routes are cached, so any search mode can be answered from
+ * the cache; routes not proven shortest, from anytime searches or searches
+ * with a heuristic not known to be consistent, are not kept.
+ *
+ * Every entry belongs to the Graph version it was computed from. When the
+ * graph is reloaded or edited, the whole cache is cleared on the next access,
+ * as no entry of an older version can be used again. All methods are
+ * synchronized, so one cache can be shared by the threads of a BatchSearch.
+ */
+public class RouteCache {
+	private final Graph distGraph;
+	private final int capacity;
+	private final LinkedHashMap<Long, Route> routes;
+	private int version;
+	private long hitCount;
+	private long missCount;
+	private long evictionCount;
+	private long invalidationCount;
+
+	/**
+	 * Constructor
+	 *
+	 * @param distGraph
+	 * @param capacity
+	 *            most routes kept, the least recently used is evicted first
+	 */
+	RouteCache(Graph distGraph, int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("capacity must be at least 1: " + capacity);
+		}
+		this.distGraph = distGraph;
+		this.capacity = capacity;
+		this.version = distGraph.getVersion();
+		routes = new LinkedHashMap<Long, Route>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, Route> eldest) {
+				if (size() > RouteCache.this.capacity) {
+					evictionCount++;
+					return true;
+				}
+				return false;
+			}
+		};
+	}
+
+	/**
+	 * Returns the cached route between two cities, in either direction.
+	 *
+	 * @param sourceCity
+	 * @param goalCity
+	 * @return Route from sourceCity to goalCity, or null if not cached
+	 */
+	public synchronized Route get(int sourceCity, int goalCity) {
+		checkVersion();
+		Route route = routes.get(key(sourceCity, goalCity));
+		if (route == null) {
+			missCount++;
+			return null;
+		}
+		hitCount++;
+		return route.getSourceCity() == sourceCity ? route : route.reversed();
+	}
+
+	/**
+	 * Caches a route computed from the current version of the graph.
+	 *
+	 * @param route
+	 *            a shortest route
+	 */
+	public void put(Route route) {
+		put(route, distGraph.getVersion());
+	}
+
+	/**
+	 * Caches a route unless the graph has changed since it was computed.
+	 */
+	private synchronized void put(Route route, int computedVersion) {
+		checkVersion();
+		if (computedVersion == version) {
+			routes.put(key(route.getSourceCity(), route.getGoalCity()), route);
+		}
+	}
+
+	/**
+	 * Returns the cached route, or searches for it & caches the result if it is
+	 * a shortest route (getBound() is 1).
+	 *
+	 * @param search
+	 *            AStarSearch over the same graph
+	 * @param sourceCity
+	 * @param goalCity
+	 * @return Route
+	 */
+	public Route search(AStarSearch search, int sourceCity, int goalCity) {
+		Route route = get(sourceCity, goalCity);
+		if (route == null) {
+			int searchVersion = distGraph.getVersion();
+			search.search(sourceCity, goalCity);
+			route = search.getRoute();
+			if (search.getBound() <= 1) {
+				put(route, searchVersion);
+			}
+		}
+		return route;
+	}
+
+	/**
+	 * Removes every route.
+	 */
+	public synchronized void clear() {
+		routes.clear();
+	}
+
+	public synchronized int size() {
+		return routes.size();
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	public synchronized long getHitCount() {
+		return hitCount;
+	}
+
+	public synchronized long getMissCount() {
+		return missCount;
+	}
+
+	/**
+	 * @return routes removed to stay within capacity
+	 */
+	public synchronized long getEvictionCount() {
+		return evictionCount;
+	}
+
+	/**
+	 * @return times the cache was cleared because the graph changed
+	 */
+	public synchronized long getInvalidationCount() {
+		return invalidationCount;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "RouteCache " + routes.size() + "/" + capacity + ": " + hitCount + " hits, " + missCount + " misses, "
+				+ evictionCount + " evictions, " + invalidationCount + " invalidations";
+	}
+
+	private void checkVersion() {
+		int graphVersion = distGraph.getVersion();
+		if (graphVersion != version) {
+			routes.clear();
+			version = graphVersion;
+			invalidationCount++;
+		}
+	}
+
+	private static Long key(int sourceCity, int goalCity) {
+		int low = Math.min(sourceCity, goalCity);
+		int high = Math.max(sourceCity, goalCity);
+		return ((long) low << 32) | high;
+	}
+}
@@ -0,0 +1,109 @@
+package starsearch;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder events for each phase of a query, shown under "Star
+ * Search" in JDK Mission Control. When no recording is running an event is
+ * never committed and the JIT removes its allocation, so the cost is a
+ * boolean check. Events are only filled in when shouldCommit() says they pass
+ * the recording's enabled & threshold settings.
+ *
+ * Expansion events are disabled by default, and only every
+ * expansionSampleInterval-th expansion is recorded when they are enabled.
+ */
+final class SearchEvents {
+	static final int expansionSampleInterval = 64; // power of two
+
+	private SearchEvents() {
+	}
+
+	@Name("starsearch.GraphLoad")
+	@Label("Graph Load")
+	@Category("Star Search")
+	@Description("Graph.importDataFile, parsing a text matrix or mapping a compiled file")
+	@StackTrace(false)
+	static final class GraphLoad extends Event {
+		@Label("File")
+		String file;
+		@Label("Cities")
+		int cities;
+		@Label("Compiled")
+		boolean compiled;
+	}
+
+	@Name("starsearch.SearchInit")
+	@Label("Search Init")
+	@Category("Star Search")
+	@Description("Resetting the PathTracker, frontier queue & search log")
+	@StackTrace(false)
+	static final class SearchInit extends Event {
+		@Label("Source")
+		int source;
+		@Label("Goal")
+		int goal;
+	}
+
+	@Name("starsearch.Search")
+	@Label("Search")
+	@Category("Star Search")
+	@Description("A whole AStarSearch.search call, from start to end")
+	@StackTrace(false)
+	static final class Search extends Event {
+		@Label("Source")
+		int source;
+		@Label("Goal")
+		int goal;
+		@Label("Mode")
+		String mode;
+		@Label("Frontier Type")
+		String frontierType;
+		@Label("Found")
+		boolean found;
+		@Label("Expanded")
+		int expanded;
+		@Label("Edges Relaxed")
+		int edges;
+		@Label("Peak Frontier")
+		int peakFrontier;
+	}
+
+	@Name("starsearch.Expansion")
+	@Label("Expansion")
+	@Category("Star Search")
+	@Description("A sample of the cities expanded by A*")
+	@Enabled(false)
+	@StackTrace(false)
+	static final class Expansion extends Event {
+		@Label("City")
+		int city;
+		@Label("f()")
+		int f;
+		@Label("g()")
+		int g;
+		@Label("Expanded So Far")
+		int expanded;
+		@Label("Frontier Size")
+		int frontierSize;
+	}
+
+	@Name("starsearch.OutputWrite")
+	@Label("Output Write")
+	@Category("Star Search")
+	@Description("SearchOutput.write of one search result")
+	@StackTrace(false)
+	static final class OutputWrite extends Event {
+		@Label("Source")
+		int source;
+		@Label("Goal")
+		int goal;
+		@Label("Verbosity")
+		String verbosity;
+	}
+}
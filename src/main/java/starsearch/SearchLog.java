@@ -0,0 +1,128 @@
+package starsearch;
+
+import java.util.Arrays;
+
+/**
+ * Append-only log of the frontier operations made by an AStarSearch. Each
+ * event is stored as 5 ints in a growable array: type | city | f() | g() |
+ * PrevCity. Any past frontier can be rebuilt by replaying the log, so no
+ * copies of the frontier are kept while searching.
+ */
+public class SearchLog {
+	public static final int PUSH = 0;
+	public static final int DECREASE_KEY = 1;
+	public static final int POP = 2;
+	public static final int GOAL = 3;
+
+	// These are for readability, labels for event fields
+	private final int typeCol = 0;
+	private final int cityCol = 1;
+	private final int fCol = 2;
+	private final int gCol = 3;
+	private final int prevCityCol = 4;
+	private final int eventSize = 5;
+
+	private int[] events;
+	private int eventCount;
+
+	SearchLog() {
+		events = new int[64 * eventSize];
+	}
+
+	public void push(int city, int fVal, int gVal, int prevCity) {
+		append(PUSH, city, fVal, gVal, prevCity);
+	}
+
+	public void decreaseKey(int city, int fVal, int gVal, int prevCity) {
+		append(DECREASE_KEY, city, fVal, gVal, prevCity);
+	}
+
+	public void pop(int city) {
+		append(POP, city, 0, 0, 0);
+	}
+
+	public void goal(int city) {
+		append(GOAL, city, 0, 0, 0);
+	}
+
+	/**
+	 * Empties the log, keeping its storage for the next search.
+	 */
+	public void clear() {
+		eventCount = 0;
+	}
+
+	public int eventCount() {
+		return eventCount;
+	}
+
+	public int getType(int event) {
+		return events[event * eventSize + typeCol];
+	}
+
+	public int getCity(int event) {
+		return events[event * eventSize + cityCol];
+	}
+
+	public int getFValue(int event) {
+		return events[event * eventSize + fCol];
+	}
+
+	public int getGValue(int event) {
+		return events[event * eventSize + gCol];
+	}
+
+	public int getPrevCity(int event) {
+		return events[event * eventSize + prevCityCol];
+	}
+
+	/**
+	 * Applies a single event to a frontier.
+	 *
+	 * @param event
+	 *            index of the event
+	 * @param frontier
+	 *            frontier holding the state before the event
+	 */
+	public void replay(int event, Frontier frontier) {
+		switch (getType(event)) {
+		case PUSH:
+		case DECREASE_KEY:
+			frontier.update(getCity(event), getFValue(event), getGValue(event), getPrevCity(event));
+			break;
+		case POP:
+			frontier.remove(getCity(event));
+			break;
+		default:
+			break;
+		}
+	}
+
+	/**
+	 * Rebuilds the frontier as it was just after an event.
+	 *
+	 * @param event
+	 *            index of the event
+	 * @return Frontier
+	 */
+	public Frontier frontierAt(int event) {
+		Frontier frontier = new Frontier();
+		for (int i = 0; i <= event; i++) {
+			replay(i, frontier);
+		}
+		return frontier;
+	}
+
+	private void append(int type, int city, int fVal, int gVal, int prevCity) {
+		int i = eventCount * eventSize;
+		if (i == events.length) {
+			events = Arrays.copyOf(events, events.length * 2);
+		}
+		events[i + typeCol] = type;
+		events[i + cityCol] = city;
+		events[i + fCol] = fVal;
+		events[i + gCol] = gVal;
+		events[i + prevCityCol] = prevCity;
+		eventCount++;
+	}
+}
@@ -0,0 +1,85 @@
+package starsearch;
+
+/**
+ * Counters & timings of the last search made by an AStarSearch. The object is
+ * reused by every search, so copy the values out if they are needed after the
+ * next one. Every search is also added to the process-wide SearchStatistics.
+ */
+public class SearchMetrics {
+	int expandedCount; // cities popped & expanded
+	int edgeCount; // edges relaxed
+	int pushCount; // cities added to a frontier
+	int decreaseKeyCount; // cities already on a frontier given a lower f()
+	int peakFrontierSize; // largest forward frontier
+	long loadNanos; // time the distance Graph took to load
+	long initNanos; // resetting the path tracker, frontier & log
+	long searchNanos; // the search loop
+	long outputNanos; // writing the result through SearchOutput
+	boolean found;
+
+	SearchMetrics() {
+	}
+
+	void reset() {
+		expandedCount = 0;
+		edgeCount = 0;
+		pushCount = 0;
+		decreaseKeyCount = 0;
+		peakFrontierSize = 0;
+		loadNanos = 0;
+		initNanos = 0;
+		searchNanos = 0;
+		outputNanos = 0;
+		found = false;
+	}
+
+	public int getExpandedCount() {
+		return expandedCount;
+	}
+
+	public int getEdgeCount() {
+		return edgeCount;
+	}
+
+	public int getPushCount() {
+		return pushCount;
+	}
+
+	public int getDecreaseKeyCount() {
+		return decreaseKeyCount;
+	}
+
+	public int getPeakFrontierSize() {
+		return peakFrontierSize;
+	}
+
+	public long getLoadNanos() {
+		return loadNanos;
+	}
+
+	public long getInitNanos() {
+		return initNanos;
+	}
+
+	public long getSearchNanos() {
+		return searchNanos;
+	}
+
+	/**
+	 * @return time writing the search result, 0 until it is written
+	 */
+	public long getOutputNanos() {
+		return outputNanos;
+	}
+
+	public boolean isFound() {
+		return found;
+	}
+
+	@Override
+	public String toString() {
+		return "expanded " + expandedCount + ", edges " + edgeCount + ", pushes " + pushCount + ", decrease-keys "
+				+ decreaseKeyCount + ", peak frontier " + peakFrontierSize + ", init " + initNanos / 1000
+				+ " us, search " + searchNanos / 1000 + " us, output " + outputNanos / 1000 + " us";
+	}
+}
@@ -0,0 +1,195 @@
+package starsearch;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Streams search results to a buffered Writer. The frontier & path tables are
+ * written row by row, so large searches never build the whole output as a
+ * String. How much is written for each search is set by the Verbosity.
+ */
+public class SearchOutput implements Flushable, Closeable {
+	private static final int bufferSize = 1 << 16;
+
+	/**
+	 * What is written for each search.
+	 */
+	public enum Verbosity {
+		/** nothing, for runs that only need the Route */
+		NONE,
+		/** one line: source, goal & the cities on the path */
+		PATH,
+		/** one line: source, goal, miles, cities expanded, the bound of anytime searches & the path */
+		SUMMARY,
+		/** the SUMMARY line, the frontier table & the path table */
+		FULL
+	}
+
+	private final Writer out;
+	private Verbosity verbosity;
+
+	/**
+	 * Constructor
+	 *
+	 * @param out
+	 *            wrapped in a BufferedWriter unless it already is one
+	 * @param verbosity
+	 */
+	SearchOutput(Writer out, Verbosity verbosity) {
+		this.out = out instanceof BufferedWriter ? out : new BufferedWriter(out, bufferSize);
+		this.verbosity = verbosity;
+	}
+
+	/**
+	 * Writes UTF-8 text to a stream.
+	 *
+	 * @param out
+	 * @param verbosity
+	 */
+	SearchOutput(OutputStream out, Verbosity verbosity) {
+		this(new OutputStreamWriter(out, StandardCharsets.UTF_8), verbosity);
+	}
+
+	public void setVerbosity(Verbosity verbosity) {
+		this.verbosity = verbosity;
+	}
+
+	public Verbosity getVerbosity() {
+		return verbosity;
+	}
+
+	/**
+	 * Writes the last search made by search at the current verbosity.
+	 *
+	 * @param search
+	 * @throws IOException
+	 */
+	public void write(AStarSearch search) throws IOException {
+		write(search, verbosity);
+	}
+
+	/**
+	 * Writes the last search made by search at the given verbosity.
+	 *
+	 * @param search
+	 * @param verbosity
+	 * @throws IOException
+	 */
+	public void write(AStarSearch search, Verbosity verbosity) throws IOException {
+		if (verbosity == Verbosity.NONE) {
+			return;
+		}
+		SearchEvents.OutputWrite event = new SearchEvents.OutputWrite();
+		event.begin();
+		long startNanos = System.nanoTime();
+		Graph distGraph = search.getDistGraph();
+		Route route = search.getRoute();
+		out.write(distGraph.getCityName(route.getSourceCity()));
+		out.write('\t');
+		out.write(distGraph.getCityName(route.getGoalCity()));
+		if (verbosity != Verbosity.PATH) {
+			out.write('\t');
+			out.write(String.valueOf(route.getMiles()));
+			out.write('\t');
+			out.write(String.valueOf(search.getExpandedCount()));
+			if (search.isAnytime() && route.isFound()) {
+				out.write('\t');
+				double bound = search.getBound();
+				out.write(Double.isInfinite(bound) ? "none" : String.format(Locale.ROOT, "%.3f", bound));
+			}
+		}
+		out.write('\t');
+		if (!route.isFound()) {
+			out.write("no route");
+		}
+		for (int i = 0; i < route.getPathLength(); i++) {
+			if (i > 0) {
+				out.write(' ');
+			}
+			out.write(distGraph.getCityName(route.getCity(i)));
+		}
+		out.write("\r\n");
+		if (verbosity == Verbosity.FULL && route.isFound()) {
+			writeTableRows(search);
+			out.write("\r\n");
+		}
+		recordOutput(search, event, startNanos, verbosity.name());
+	}
+
+	/**
+	 * Writes only the frontier & path tables of the last search made by search,
+	 * found or not, in the layout of the UI's results file.
+	 *
+	 * @param search
+	 * @throws IOException
+	 */
+	public void writeTables(AStarSearch search) throws IOException {
+		SearchEvents.OutputWrite event = new SearchEvents.OutputWrite();
+		event.begin();
+		long startNanos = System.nanoTime();
+		writeTableRows(search);
+		recordOutput(search, event, startNanos, "TABLES");
+	}
+
+	private void writeTableRows(AStarSearch search) throws IOException {
+		search.writeFrontierTracker(out);
+		out.write("\r\n\r\n");
+		out.write("\t\t*** Cities gone through, from source to destination ***\r\n");
+		search.writePathTaken(out);
+	}
+
+	private void recordOutput(AStarSearch search, SearchEvents.OutputWrite event, long startNanos,
+			String verbosityName) {
+		search.getMetrics().outputNanos = System.nanoTime() - startNanos;
+		SearchStatistics.getInstance().recordOutput(search.getMetrics().outputNanos);
+		event.end();
+		if (event.shouldCommit()) {
+			Route route = search.getRoute();
+			event.source = route.getSourceCity();
+			event.goal = route.getGoalCity();
+			event.verbosity = verbosityName;
+			event.commit();
+		}
+	}
+
+	@Override
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		out.close();
+	}
+
+	/**
+	 * Parses a verbosity name, ignoring case. "cost" & "trace" are accepted for
+	 * SUMMARY & FULL.
+	 *
+	 * @param name
+	 * @return Verbosity
+	 * @throws IllegalArgumentException
+	 *             if the name is not a verbosity
+	 */
+	public static Verbosity parseVerbosity(String name) {
+		switch (name.toLowerCase(Locale.ROOT)) {
+		case "cost":
+			return Verbosity.SUMMARY;
+		case "trace":
+			return Verbosity.FULL;
+		default:
+			try {
+				return Verbosity.valueOf(name.toUpperCase(Locale.ROOT));
+			} catch (IllegalArgumentException e) {
+				throw new IllegalArgumentException("Unknown verbosity: " + name);
+			}
+		}
+	}
+}
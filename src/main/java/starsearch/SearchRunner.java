@@ -0,0 +1,315 @@
+package starsearch;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Headless batch driver for AStarSearch. Loads the graphs once, then reads
+ * source/goal pairs from a file or stdin and writes one result per pair as it
+ * goes. No JavaFX classes are used, so it runs without a display.
+ *
+ * Each input line is "source goal [verbosity]", with cities given by name or
+ * code. The optional third column overrides the --output verbosity for that
+ * query. Blank lines & lines starting with # are skipped.
+ *
+ * With --table, the input is instead a line of source cities & an optional
+ * line of target cities, and the output is the distance table between them.
+ */
+public class SearchRunner {
+	public static final Path defaultInputDirectory = Path.of("src", "main", "resources");
+	public static final String defaultDistanceFileName = "MnDOTactualDistances-spaces.txt";
+	public static final String defaultHeuristicFileName = "MnDOTheuristicDistances-spaces.txt";
+
+	private final Graph distGraph;
+	private final Heuristic heuristic;
+	private final AStarSearch search;
+	private SearchOutput.Verbosity verbosity = SearchOutput.Verbosity.SUMMARY;
+	private int failedQueries;
+
+	/**
+	 * Constructor
+	 *
+	 * @param distGraph
+	 * @param heuristic
+	 */
+	SearchRunner(Graph distGraph, Heuristic heuristic) {
+		this.distGraph = distGraph;
+		this.heuristic = heuristic;
+		search = new AStarSearch(distGraph, heuristic);
+	}
+
+	public void setVerbosity(SearchOutput.Verbosity verbosity) {
+		this.verbosity = verbosity;
+	}
+
+	public SearchOutput.Verbosity getVerbosity() {
+		return verbosity;
+	}
+
+	/**
+	 * @return the AStarSearch reused for every query
+	 */
+	public AStarSearch getSearch() {
+		return search;
+	}
+
+	/**
+	 * @return queries that could not be answered in the last run()
+	 */
+	public int getFailedQueries() {
+		return failedQueries;
+	}
+
+	/**
+	 * Answers every query read from in, streaming results to out. Queries naming
+	 * unknown cities are reported to err and skipped.
+	 *
+	 * @param in
+	 *            source/goal pairs, one per line
+	 * @param out
+	 * @param err
+	 * @return number of queries answered
+	 * @throws IOException
+	 *             if reading or writing fails
+	 */
+	public int run(Reader in, SearchOutput out, Writer err) throws IOException {
+		BufferedReader reader = new BufferedReader(in);
+		failedQueries = 0;
+		int answered = 0;
+		int lineNumber = 0;
+		String line;
+		while ((line = reader.readLine()) != null) {
+			lineNumber++;
+			line = line.trim();
+			if (line.isEmpty() || line.startsWith("#")) {
+				continue;
+			}
+			String[] fields = line.split("\\s+");
+			try {
+				if (fields.length < 2 || fields.length > 3) {
+					throw new IllegalArgumentException("expected \"source goal [verbosity]\"");
+				}
+				SearchOutput.Verbosity lineVerbosity = fields.length == 3 ? SearchOutput.parseVerbosity(fields[2])
+						: verbosity;
+				search.search(fields[0], fields[1]);
+				out.write(search, lineVerbosity);
+				answered++;
+			} catch (IllegalArgumentException e) {
+				failedQueries++;
+				err.write("line " + lineNumber + ": " + e.getMessage() + System.lineSeparator());
+			}
+		}
+		out.flush();
+		err.flush();
+		return answered;
+	}
+
+	/**
+	 * Reads a line of source cities & an optional line of target cities from
+	 * in, by name or code, and writes the distance table between them to out.
+	 * Targets default to the sources. Rows are computed in parallel.
+	 *
+	 * @param in
+	 * @param out
+	 * @param err
+	 * @return the table, or null if the input named unknown cities
+	 * @throws IOException
+	 *             if reading or writing fails
+	 * @throws InterruptedException
+	 *             if interrupted while the table is computed
+	 */
+	public DistanceTable runTable(Reader in, Writer out, Writer err) throws IOException, InterruptedException {
+		BufferedReader reader = new BufferedReader(in);
+		failedQueries = 0;
+		List<List<String>> cityLines = new ArrayList<>(2);
+		String line;
+		while (cityLines.size() < 2 && (line = reader.readLine()) != null) {
+			line = line.trim();
+			if (!line.isEmpty() && !line.startsWith("#")) {
+				cityLines.add(Arrays.asList(line.split("\\s+")));
+			}
+		}
+		if (cityLines.isEmpty()) {
+			failedQueries++;
+			err.write("expected a line of source cities" + System.lineSeparator());
+			err.flush();
+			return null;
+		}
+		List<String> sources = cityLines.get(0);
+		List<String> targets = cityLines.get(cityLines.size() - 1);
+		DistanceTable table;
+		try (BatchSearch batchSearch = new BatchSearch(distGraph, heuristic)) {
+			batchSearch.setFrontierType(search.getFrontierType());
+			table = batchSearch.distanceTable(sources, targets);
+		} catch (IllegalArgumentException e) {
+			failedQueries++;
+			err.write(e.getMessage() + System.lineSeparator());
+			err.flush();
+			return null;
+		}
+		table.write(out);
+		out.flush();
+		return table;
+	}
+
+	/**
+	 * Usage: SearchRunner [options] [pairs-file | -]
+	 *
+	 * <pre>
+	 *   --distances FILE    actual distance graph (text or binary)
+	 *   --heuristic FILE    heuristic distance graph
+	 *   --coordinates FILE  use a CoordinateHeuristic instead of --heuristic
+	 *   --landmarks K       use a LandmarkHeuristic with K landmarks instead
+	 *   --output LEVEL      none, path, summary (default) or full
+	 *   --frontier TYPE     FrontierType of the search queue
+	 *   --bidirectional     use bidirectional A*
+	 *   --hierarchy FILE    answer queries from a ContractionHierarchy file
+	 *   --anytime MS        anytime search, improving each route for up to MS ms
+	 *   --bound B           anytime search, stopping once within B times optimal
+	 *   --table             read source & target lines, write their distance table
+	 *   --metrics           write SearchStatistics to stderr at the end
+	 * </pre>
+	 *
+	 * Pairs are read from stdin when no file or "-" is given. The graph files
+	 * default to the MnDOT files in src/main/resources.
+	 */
+	public static void main(String[] args) throws IOException {
+		Path distances = defaultInputDirectory.resolve(defaultDistanceFileName);
+		Path heuristicFile = defaultInputDirectory.resolve(defaultHeuristicFileName);
+		Path coordinates = null;
+		int landmarks = 0;
+		SearchOutput.Verbosity verbosity = SearchOutput.Verbosity.SUMMARY;
+		FrontierType frontierType = FrontierType.DARY_HEAP;
+		boolean bidirectional = false;
+		Path hierarchy = null;
+		Duration anytimeBudget = null;
+		double anytimeBound = 0;
+		boolean table = false;
+		boolean metrics = false;
+		Path pairs = null;
+		try {
+			for (int i = 0; i < args.length; i++) {
+				switch (args[i]) {
+				case "--distances":
+					distances = Path.of(optionValue(args, ++i));
+					break;
+				case "--heuristic":
+					heuristicFile = Path.of(optionValue(args, ++i));
+					break;
+				case "--coordinates":
+					coordinates = Path.of(optionValue(args, ++i));
+					break;
+				case "--landmarks":
+					landmarks = Integer.parseInt(optionValue(args, ++i));
+					break;
+				case "--output":
+					verbosity = SearchOutput.parseVerbosity(optionValue(args, ++i));
+					break;
+				case "--frontier":
+					frontierType = FrontierType.valueOf(optionValue(args, ++i).toUpperCase(Locale.ROOT));
+					break;
+				case "--bidirectional":
+					bidirectional = true;
+					break;
+				case "--metrics":
+					metrics = true;
+					break;
+				case "--table":
+					table = true;
+					break;
+				case "--hierarchy":
+					hierarchy = Path.of(optionValue(args, ++i));
+					break;
+				case "--anytime":
+					anytimeBudget = Duration.ofMillis(Long.parseLong(optionValue(args, ++i)));
+					break;
+				case "--bound":
+					anytimeBound = Double.parseDouble(optionValue(args, ++i));
+					if (anytimeBound < 1) {
+						throw new IllegalArgumentException("Bound must be at least 1: " + anytimeBound);
+					}
+					break;
+				default:
+					if (pairs != null || args[i].startsWith("--")) {
+						throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+					}
+					pairs = args[i].equals("-") ? null : Path.of(args[i]);
+					break;
+				}
+			}
+		} catch (IllegalArgumentException e) {
+			System.err.println(e.getMessage());
+			System.err.println("Usage: SearchRunner [--distances FILE] [--heuristic FILE | --coordinates FILE"
+					+ " | --landmarks K]"
+					+ " [--output none|path|summary|full] [--frontier TYPE] [--bidirectional] [--hierarchy FILE]"
+					+ " [--anytime MS] [--bound B] [--table] [--metrics] [pairs-file | -]");
+			System.exit(2);
+		}
+
+		Graph distGraph = new Graph(distances.toFile());
+		Heuristic heuristic;
+		if (landmarks > 0) {
+			heuristic = new LandmarkHeuristic(distGraph, landmarks);
+		} else if (coordinates != null) {
+			heuristic = new CoordinateHeuristic(coordinates, distGraph, CoordinateHeuristic.Metric.HAVERSINE);
+		} else {
+			heuristic = new MatrixHeuristic(new Graph(heuristicFile.toFile()));
+		}
+		SearchRunner runner = new SearchRunner(distGraph, heuristic);
+		runner.setVerbosity(verbosity);
+		runner.getSearch().setFrontierType(frontierType);
+		runner.getSearch().setBidirectional(bidirectional);
+		if (anytimeBudget != null || anytimeBound > 0) {
+			runner.getSearch().setAnytime(anytimeBudget, anytimeBound > 0 ? anytimeBound : 1);
+		}
+		if (hierarchy != null) {
+			ContractionHierarchy contractionHierarchy = ContractionHierarchy.open(hierarchy);
+			if (!contractionHierarchy.matches(distGraph)) {
+				System.err.println(hierarchy + " was not built from " + distances);
+				System.exit(2);
+			}
+			runner.getSearch().setContractionHierarchy(contractionHierarchy);
+		}
+
+		Reader in = pairs == null ? new InputStreamReader(System.in, StandardCharsets.UTF_8)
+				: Files.newBufferedReader(pairs, StandardCharsets.UTF_8);
+		Writer err = new OutputStreamWriter(System.err, StandardCharsets.UTF_8);
+		try (in) {
+			if (table) {
+				runner.runTable(in, new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)), err);
+			} else {
+				runner.run(in, new SearchOutput(System.out, verbosity), err);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			System.exit(1);
+		}
+		if (metrics) {
+			SearchStatistics.getInstance().write(err);
+			err.flush();
+		}
+		if (runner.getFailedQueries() > 0) {
+			System.exit(1);
+		}
+	}
+
+	private static String optionValue(String[] args, int i) {
+		if (i >= args.length) {
+			throw new IllegalArgumentException("Missing value for " + args[i - 1]);
+		}
+		return args[i];
+	}
+}
@@ -0,0 +1,239 @@
+package starsearch;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Process-wide totals of every search, Graph load & output write, with
+ * latency histograms. Counters are LongAdders, so searches on many threads
+ * record without contending. The single instance is registered with the
+ * platform MBeanServer the first time it is used, and can be dumped as text.
+ */
+public class SearchStatistics implements SearchStatisticsMBean {
+	public static final String OBJECT_NAME = "starsearch:type=SearchStatistics";
+
+	private static final SearchStatistics instance = new SearchStatistics();
+
+	private final LongAdder queryCount = new LongAdder();
+	private final LongAdder foundCount = new LongAdder();
+	private final LongAdder expandedCount = new LongAdder();
+	private final LongAdder edgeCount = new LongAdder();
+	private final LongAdder pushCount = new LongAdder();
+	private final LongAdder decreaseKeyCount = new LongAdder();
+	private final LongAccumulator peakFrontierSize = new LongAccumulator(Math::max, 0);
+	private final LatencyHistogram load = new LatencyHistogram();
+	private final LatencyHistogram init = new LatencyHistogram();
+	private final LatencyHistogram search = new LatencyHistogram();
+	private final LatencyHistogram output = new LatencyHistogram();
+
+	static {
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(instance, new ObjectName(OBJECT_NAME));
+		} catch (InstanceAlreadyExistsException e) {
+			// registered by another class loader
+		} catch (JMException | SecurityException e) {
+			System.err.println("SearchStatistics not registered with JMX: " + e);
+		}
+	}
+
+	private SearchStatistics() {
+	}
+
+	public static SearchStatistics getInstance() {
+		return instance;
+	}
+
+	/**
+	 * Adds the counters, init & search time of a finished search.
+	 */
+	void recordSearch(SearchMetrics metrics) {
+		queryCount.increment();
+		if (metrics.found) {
+			foundCount.increment();
+		}
+		expandedCount.add(metrics.expandedCount);
+		edgeCount.add(metrics.edgeCount);
+		pushCount.add(metrics.pushCount);
+		decreaseKeyCount.add(metrics.decreaseKeyCount);
+		peakFrontierSize.accumulate(metrics.peakFrontierSize);
+		init.record(metrics.initNanos);
+		search.record(metrics.searchNanos);
+	}
+
+	void recordLoad(long nanos) {
+		load.record(nanos);
+	}
+
+	void recordOutput(long nanos) {
+		output.record(nanos);
+	}
+
+	public LatencyHistogram getLoadHistogram() {
+		return load;
+	}
+
+	public LatencyHistogram getInitHistogram() {
+		return init;
+	}
+
+	public LatencyHistogram getSearchHistogram() {
+		return search;
+	}
+
+	public LatencyHistogram getOutputHistogram() {
+		return output;
+	}
+
+	@Override
+	public long getQueryCount() {
+		return queryCount.sum();
+	}
+
+	@Override
+	public long getFoundCount() {
+		return foundCount.sum();
+	}
+
+	@Override
+	public long getExpandedCount() {
+		return expandedCount.sum();
+	}
+
+	@Override
+	public long getEdgeCount() {
+		return edgeCount.sum();
+	}
+
+	@Override
+	public long getPushCount() {
+		return pushCount.sum();
+	}
+
+	@Override
+	public long getDecreaseKeyCount() {
+		return decreaseKeyCount.sum();
+	}
+
+	@Override
+	public long getPeakFrontierSize() {
+		return peakFrontierSize.get();
+	}
+
+	@Override
+	public long getLoadCount() {
+		return load.getCount();
+	}
+
+	@Override
+	public double getSearchMeanMicros() {
+		return search.getMean() / 1000;
+	}
+
+	@Override
+	public double getSearchP50Micros() {
+		return search.getPercentile(0.5) / 1000.0;
+	}
+
+	@Override
+	public double getSearchP99Micros() {
+		return search.getPercentile(0.99) / 1000.0;
+	}
+
+	@Override
+	public double getSearchP999Micros() {
+		return search.getPercentile(0.999) / 1000.0;
+	}
+
+	@Override
+	public double getSearchMaxMicros() {
+		return search.getMax() / 1000.0;
+	}
+
+	@Override
+	public double getInitP99Micros() {
+		return init.getPercentile(0.99) / 1000.0;
+	}
+
+	@Override
+	public double getOutputP99Micros() {
+		return output.getPercentile(0.99) / 1000.0;
+	}
+
+	@Override
+	public double getLoadMaxMicros() {
+		return load.getMax() / 1000.0;
+	}
+
+	@Override
+	public void reset() {
+		queryCount.reset();
+		foundCount.reset();
+		expandedCount.reset();
+		edgeCount.reset();
+		pushCount.reset();
+		decreaseKeyCount.reset();
+		peakFrontierSize.reset();
+		load.reset();
+		init.reset();
+		search.reset();
+		output.reset();
+	}
+
+	@Override
+	public String dump() {
+		StringWriter s = new StringWriter();
+		try {
+			write(s);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e); // not thrown by StringWriter
+		}
+		return s.toString();
+	}
+
+	@Override
+	public String toString() {
+		return dump();
+	}
+
+	/**
+	 * Writes the totals, then a row of microsecond percentiles per histogram.
+	 *
+	 * @param out
+	 * @throws IOException
+	 */
+	public void write(Writer out) throws IOException {
+		long queries = getQueryCount();
+		out.write("queries " + queries + ", found " + getFoundCount() + "\r\n");
+		out.write("total   expanded " + getExpandedCount() + ", edges " + getEdgeCount() + ", pushes "
+				+ getPushCount() + ", decrease-keys " + getDecreaseKeyCount() + ", peak frontier "
+				+ getPeakFrontierSize() + "\r\n");
+		if (queries > 0) {
+			out.write(String.format(Locale.ROOT, "mean    expanded %.1f, edges %.1f, pushes %.1f, decrease-keys %.1f\r\n",
+					(double) getExpandedCount() / queries, (double) getEdgeCount() / queries,
+					(double) getPushCount() / queries, (double) getDecreaseKeyCount() / queries));
+		}
+		out.write(String.format(Locale.ROOT, "%-7s %8s %10s %10s %10s %10s %10s\r\n", "us", "count", "mean", "p50", "p99",
+				"p999", "max"));
+		writeHistogram(out, "load", load);
+		writeHistogram(out, "init", init);
+		writeHistogram(out, "search", search);
+		writeHistogram(out, "output", output);
+	}
+
+	private static void writeHistogram(Writer out, String name, LatencyHistogram histogram) throws IOException {
+		out.write(String.format(Locale.ROOT, "%-7s %8d %10.1f %10.1f %10.1f %10.1f %10.1f\r\n", name,
+				histogram.getCount(), histogram.getMean() / 1000, histogram.getPercentile(0.5) / 1000.0,
+				histogram.getPercentile(0.99) / 1000.0, histogram.getPercentile(0.999) / 1000.0,
+				histogram.getMax() / 1000.0));
+	}
+}
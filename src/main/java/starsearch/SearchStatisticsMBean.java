@@ -0,0 +1,49 @@
+package starsearch;
+
+/**
+ * JMX view of SearchStatistics, registered as starsearch:type=SearchStatistics.
+ * Times are in microseconds.
+ */
+public interface SearchStatisticsMBean {
+	public long getQueryCount();
+
+	public long getFoundCount();
+
+	public long getExpandedCount();
+
+	public long getEdgeCount();
+
+	public long getPushCount();
+
+	public long getDecreaseKeyCount();
+
+	public long getPeakFrontierSize();
+
+	public long getLoadCount();
+
+	public double getSearchMeanMicros();
+
+	public double getSearchP50Micros();
+
+	public double getSearchP99Micros();
+
+	public double getSearchP999Micros();
+
+	public double getSearchMaxMicros();
+
+	public double getInitP99Micros();
+
+	public double getOutputP99Micros();
+
+	public double getLoadMaxMicros();
+
+	/**
+	 * @return the plain-text dump
+	 */
+	public String dump();
+
+	/**
+	 * Sets every counter & histogram back to 0.
+	 */
+	public void reset();
+}
@@ -5,5 +5,8 @@
  * 		MnDOTactualDistances-spaces.txt
  * 		MnDOTheuristicDistances-spaces.txt
  * 
+ * MnDOTcoordinates-spaces.txt holds the latitude/longitude of each city, for
+ * use with a CoordinateHeuristic in place of the heuristic matrix.
+ * 
  */
 package starsearch;
\ No newline at end of file
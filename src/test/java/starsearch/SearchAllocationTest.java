@@ -0,0 +1,56 @@
+package starsearch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks that a reused AStarSearch allocates nothing once warmed up, using the
+ * per-thread allocated bytes counter of the HotSpot ThreadMXBean.
+ */
+class SearchAllocationTest {
+	private static final File resources = new File("src/main/resources");
+
+	@Test
+	void warmedUpSearchesAllocateNothing() throws Exception {
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory
+				.getThreadMXBean();
+		assumeTrue(threads.isThreadAllocatedMemorySupported());
+		threads.setThreadAllocatedMemoryEnabled(true);
+		long threadId = Thread.currentThread().getId();
+
+		Graph distGraph = new Graph(new File(resources, "MnDOTactualDistances-spaces.txt"));
+		Graph heurGraph = new Graph(new File(resources, "MnDOTheuristicDistances-spaces.txt"));
+		AStarSearch search = new AStarSearch(distGraph, heurGraph);
+		search.setFrontierType(FrontierType.DARY_HEAP);
+
+		// the JIT removes the allocation of the unrecorded JFR events only once it
+		// has compiled the search, so passes are repeated until one allocates nothing
+		long emptyBytes = threads.getThreadAllocatedBytes(threadId);
+		emptyBytes = threads.getThreadAllocatedBytes(threadId) - emptyBytes; // cost of the counter itself
+		long allocated = Long.MAX_VALUE;
+		for (int pass = 0; pass < 200 && allocated > 0; pass++) {
+			long before = threads.getThreadAllocatedBytes(threadId);
+			searchAllPairs(search);
+			allocated = Math.min(allocated, threads.getThreadAllocatedBytes(threadId) - before - emptyBytes);
+		}
+
+		assertEquals(0, allocated, "bytes allocated by " + distGraph.length() * (distGraph.length() - 1)
+				+ " warmed up searches");
+	}
+
+	private static void searchAllPairs(AStarSearch search) {
+		int numCities = search.getDistGraph().length();
+		for (int source = 0; source < numCities; source++) {
+			for (int goal = 0; goal < numCities; goal++) {
+				if (source != goal) {
+					search.search(source, goal);
+				}
+			}
+		}
+	}
+}
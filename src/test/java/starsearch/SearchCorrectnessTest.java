@@ -0,0 +1,317 @@
+package starsearch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Checks every search mode against Dijkstra on all pairs of MnDOT cities, with
+ * the coordinate & landmark heuristics and every FrontierType, before & after
+ * the graph is edited with Graph.apply().
+ */
+class SearchCorrectnessTest {
+	private static final File resources = new File("src/main/resources");
+	private static final int unreachable = Integer.MAX_VALUE;
+
+	@Test
+	void aStarRoutesAreShortest() throws IOException {
+		Graph distGraph = loadGraph();
+		for (Heuristic heuristic : consistentHeuristics(distGraph)) {
+			for (FrontierType frontierType : FrontierType.values()) {
+				for (boolean bidirectional : new boolean[] { false, true }) {
+					AStarSearch search = new AStarSearch(distGraph, heuristic);
+					search.setFrontierType(frontierType);
+					search.setBidirectional(bidirectional);
+					assertAllPairsShortest(search,
+							name(heuristic, frontierType, bidirectional ? "bidirectional" : "A*"));
+				}
+			}
+		}
+	}
+
+	@Test
+	void aStarRoutesAreShortestAfterEdits() throws IOException {
+		Graph distGraph = loadGraph();
+		Heuristic[] heuristics = consistentHeuristics(distGraph);
+		Random random = new Random(1);
+		for (int round = 0; round < 3; round++) {
+			distGraph.apply(randomEdits(distGraph.getAdjacency(), random));
+			for (Heuristic heuristic : heuristics) {
+				for (FrontierType frontierType : FrontierType.values()) {
+					for (int mode = 0; mode < 3; mode++) {
+						AStarSearch search = new AStarSearch(distGraph, heuristic);
+						search.setFrontierType(frontierType);
+						search.setBidirectional(mode == 1);
+						if (mode == 2) {
+							search.setAnytime(1);
+						}
+						assertAllPairsShortest(search, name(heuristic, frontierType,
+								new String[] { "A*", "bidirectional", "anytime" }[mode] + " after edit " + round));
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * A heuristic that is admissible but not consistent makes A* reopen cities;
+	 * routes must still be shortest, since the search ends only when the goal
+	 * is popped.
+	 */
+	@Test
+	void goalOnPopIsShortestWithInconsistentHeuristic() throws IOException {
+		Graph distGraph = loadGraph();
+		int[][] shortest = allPairsDijkstra(distGraph.getAdjacency());
+		Heuristic inconsistent = (city, goalCity) -> city % 2 == 0 ? shortest[goalCity][city] : 0;
+		for (FrontierType frontierType : FrontierType.values()) {
+			AStarSearch search = new AStarSearch(distGraph, inconsistent);
+			search.setFrontierType(frontierType);
+			int reopened = 0;
+			for (int source = 0; source < distGraph.length(); source++) {
+				for (int goal = 0; goal < distGraph.length(); goal++) {
+					if (source != goal) {
+						search.search(source, goal);
+						assertRoute(distGraph.getSnapshot(), search.getRoute(), shortest[goal][source],
+								frontierType + " " + source + "-" + goal);
+						reopened += search.getReopenedCount();
+					}
+				}
+			}
+			assertTrue(reopened > 0, frontierType + " never reopened a city");
+		}
+	}
+
+	@Test
+	void anytimeRoutesAreWithinTheirBound() throws IOException {
+		Graph distGraph = loadGraph();
+		int[][] shortest = allPairsDijkstra(distGraph.getAdjacency());
+		for (Heuristic heuristic : consistentHeuristics(distGraph)) {
+			for (double targetBound : new double[] { 1, 1.2, 2 }) {
+				AStarSearch search = new AStarSearch(distGraph, heuristic);
+				search.setAnytime(targetBound);
+				for (int source = 0; source < distGraph.length(); source++) {
+					for (int goal = 0; goal < distGraph.length(); goal++) {
+						if (source != goal) {
+							search.search(source, goal);
+							String pair = name(heuristic, null, "bound " + targetBound) + " " + source + "-" + goal;
+							Route route = search.getRoute();
+							assertTrue(search.getBound() <= targetBound, pair + " bound " + search.getBound());
+							// a route can be exactly bound times the shortest, so allow for rounding
+							assertTrue(route.getMiles() <= search.getBound() * shortest[goal][source] + 1e-9, pair);
+							assertRoute(distGraph.getSnapshot(), route, route.getMiles(), pair);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	void inconsistentHeuristicProvesNoBound() throws IOException {
+		Graph distGraph = loadGraph();
+		Graph heurGraph = new Graph(new File(resources, "MnDOTheuristicDistances-spaces.txt"));
+		AStarSearch search = new AStarSearch(distGraph, heurGraph);
+		search.setAnytime(1);
+		RouteCache cache = new RouteCache(distGraph, 100);
+		cache.search(search, distGraph.getCityIndex("AlbertLea"), distGraph.getCityIndex("Noyes"));
+		assertEquals(Double.POSITIVE_INFINITY, search.getBound());
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	void contractionHierarchyRoutesAreShortest(@TempDir Path directory) throws IOException {
+		Graph distGraph = loadGraph();
+		ContractionHierarchy built = ContractionHierarchy.build(distGraph);
+		Path file = directory.resolve("MnDOT.ch");
+		built.write(file);
+		ContractionHierarchy opened = ContractionHierarchy.open(file);
+		assertEquals(built.edgeCount(), opened.edgeCount());
+		assertEquals(built.shortcutCount(), opened.shortcutCount());
+		assertTrue(opened.matches(distGraph));
+
+		Heuristic heuristic = consistentHeuristics(distGraph)[0];
+		for (ContractionHierarchy hierarchy : new ContractionHierarchy[] { built, opened }) {
+			AStarSearch search = new AStarSearch(distGraph, heuristic);
+			search.setContractionHierarchy(hierarchy);
+			assertAllPairsShortest(search, "contraction hierarchy");
+			assertNotNull(search.getContractionHierarchy());
+
+			// once the graph is edited the hierarchy is dropped, & A* answers
+			distGraph.apply(randomEdits(distGraph.getAdjacency(), new Random(2)));
+			assertFalse(hierarchy.matches(distGraph.getSnapshot()));
+			assertAllPairsShortest(search, "contraction hierarchy after edit");
+			assertNull(search.getContractionHierarchy());
+			distGraph = loadGraph();
+		}
+	}
+
+	/**
+	 * Repairs a route after each batch of 1-3 edits. Roads are only made longer,
+	 * closed, or given back their original distance, so the coordinate
+	 * heuristic stays consistent.
+	 */
+	@Test
+	void incrementalSearchRepairsRoutes() throws IOException {
+		Graph distGraph = loadGraph();
+		CsrGraph original = distGraph.getAdjacency();
+		Heuristic heuristic = consistentHeuristics(distGraph)[0];
+		Random random = new Random(3);
+		for (int query = 0; query < 50; query++) {
+			int source = random.nextInt(distGraph.length());
+			int goal = random.nextInt(distGraph.length());
+			IncrementalSearch replanner = new IncrementalSearch(distGraph, heuristic);
+			replanner.search(source, goal);
+			for (int repair = 0; repair < 5; repair++) {
+				for (int edits = 1 + random.nextInt(3); edits > 0; edits--) {
+					int city = random.nextInt(original.length());
+					int edge = original.firstEdge(city) + random.nextInt(original.degree(city));
+					int other = original.getTarget(edge);
+					int miles = original.getWeight(edge);
+					switch (random.nextInt(3)) {
+					case 0:
+						replanner.setDistance(city, other, miles + 1 + random.nextInt(50));
+						break;
+					case 1:
+						replanner.setDistance(city, other, distGraph.noEdgeValue);
+						break;
+					default:
+						replanner.setDistance(city, other, miles);
+						break;
+					}
+				}
+				Route route = replanner.search(source, goal);
+				int[] fromGoal = dijkstra(distGraph.getAdjacency(), goal);
+				assertRoute(distGraph.getSnapshot(), route, fromGoal[source],
+						"repair " + repair + " of " + source + "-" + goal);
+			}
+		}
+	}
+
+	private static Graph loadGraph() throws IOException {
+		return new Graph(new File(resources, "MnDOTactualDistances-spaces.txt"));
+	}
+
+	private static Heuristic[] consistentHeuristics(Graph distGraph) throws IOException {
+		return new Heuristic[] {
+				new CoordinateHeuristic(new File(resources, "MnDOTcoordinates-spaces.txt").toPath(), distGraph,
+						CoordinateHeuristic.Metric.HAVERSINE),
+				new LandmarkHeuristic(distGraph, 8) };
+	}
+
+	/**
+	 * Halves about a third of the edges, closes a few & lengthens a few more.
+	 */
+	private static GraphUpdate randomEdits(CsrGraph adjacency, Random random) {
+		GraphUpdate update = new GraphUpdate();
+		for (int city = 0; city < adjacency.length(); city++) {
+			for (int edge = adjacency.firstEdge(city); edge < adjacency.endEdge(city); edge++) {
+				int other = adjacency.getTarget(edge);
+				if (other > city) {
+					int choice = random.nextInt(10);
+					if (choice < 3) {
+						update.setDistance(city, other, adjacency.getWeight(edge) / 2);
+					} else if (choice == 3) {
+						update.close(city, other);
+					} else if (choice == 4) {
+						update.setDistance(city, other, adjacency.getWeight(edge) * 2);
+					}
+				}
+			}
+		}
+		return update;
+	}
+
+	private static void assertAllPairsShortest(AStarSearch search, String name) {
+		GraphSnapshot snapshot = search.getDistGraph().getSnapshot();
+		int[][] shortest = allPairsDijkstra(snapshot.getAdjacency());
+		for (int source = 0; source < snapshot.length(); source++) {
+			for (int goal = 0; goal < snapshot.length(); goal++) {
+				if (source != goal) {
+					search.search(source, goal);
+					String pair = name + " " + source + "-" + goal;
+					assertRoute(snapshot, search.getRoute(), shortest[goal][source], pair);
+					if (search.getRoute().isFound()) {
+						assertEquals(1, search.getBound(), pair);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Checks that a route has the expected miles, & follows edges of the
+	 * snapshot from source to goal adding up to them.
+	 */
+	private static void assertRoute(GraphSnapshot snapshot, Route route, int expectedMiles, String name) {
+		if (expectedMiles == unreachable) {
+			assertFalse(route.isFound(), name + " found a route to an unreachable city");
+			return;
+		}
+		assertTrue(route.isFound(), name + " found no route");
+		assertEquals(expectedMiles, route.getMiles(), name + " miles");
+		assertEquals(route.getSourceCity(), route.getCity(0), name + " start");
+		assertEquals(route.getGoalCity(), route.getCity(route.getPathLength() - 1), name + " end");
+		int miles = 0;
+		for (int i = 1; i < route.getPathLength(); i++) {
+			int distance = snapshot.getDistance(route.getCity(i - 1), route.getCity(i));
+			assertTrue(distance < snapshot.getNoEdgeValue(), name + " uses a missing edge");
+			miles += distance;
+		}
+		assertEquals(expectedMiles, miles, name + " path miles");
+	}
+
+	private static String name(Heuristic heuristic, FrontierType frontierType, String mode) {
+		return heuristic.getClass().getSimpleName() + (frontierType == null ? "" : " " + frontierType) + " " + mode;
+	}
+
+	/**
+	 * @return shortest[goal][city] from every city to every goal
+	 */
+	private static int[][] allPairsDijkstra(CsrGraph adjacency) {
+		int[][] shortest = new int[adjacency.length()][];
+		for (int goal = 0; goal < adjacency.length(); goal++) {
+			shortest[goal] = dijkstra(adjacency, goal);
+		}
+		return shortest;
+	}
+
+	/**
+	 * Reference Dijkstra with a java.util.PriorityQueue, independent of the
+	 * FrontierQueue implementations under test.
+	 */
+	private static int[] dijkstra(CsrGraph adjacency, int sourceCity) {
+		int[] distance = new int[adjacency.length()];
+		Arrays.fill(distance, unreachable);
+		distance[sourceCity] = 0;
+		PriorityQueue<long[]> queue = new PriorityQueue<>((a, b) -> Long.compare(a[0], b[0]));
+		queue.add(new long[] { 0, sourceCity });
+		while (!queue.isEmpty()) {
+			long[] entry = queue.poll();
+			int city = (int) entry[1];
+			if (entry[0] > distance[city]) {
+				continue;
+			}
+			for (int edge = adjacency.firstEdge(city); edge < adjacency.endEdge(city); edge++) {
+				int next = adjacency.getTarget(edge);
+				int nextDistance = distance[city] + adjacency.getWeight(edge);
+				if (nextDistance < distance[next]) {
+					distance[next] = nextDistance;
+					queue.add(new long[] { nextDistance, next });
+				}
+			}
+		}
+		return distance;
+	}
+}